@@ -0,0 +1,33 @@
+package com.wynvers.spawners;
+
+/**
+ * Packs block and chunk coordinates into primitive {@code long} keys.
+ *
+ * <p>Block keys use the same layout as vanilla's {@code BlockPos#asLong}:
+ * 26 bits X, 26 bits Z, 12 bits Y, which covers the full world border and
+ * every build height a 1.20 server supports.</p>
+ */
+final class BlockKey {
+
+    private BlockKey() {
+    }
+
+    static long pack(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFFL);
+    }
+
+    static int x(long key) { return (int) (key >> 38); }
+    static int y(long key) { return (int) (key << 52 >> 52); }
+    static int z(long key) { return (int) (key << 26 >> 38); }
+
+    static long chunk(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    static long chunkOf(long blockKey) {
+        return chunk(x(blockKey) >> 4, z(blockKey) >> 4);
+    }
+
+    static int chunkX(long chunkKey) { return (int) (chunkKey >> 32); }
+    static int chunkZ(long chunkKey) { return (int) chunkKey; }
+}
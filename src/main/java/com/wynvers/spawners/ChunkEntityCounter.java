@@ -0,0 +1,108 @@
+package com.wynvers.spawners;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.LivingEntity;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Positions of the living entities in loaded chunks, for the
+ * {@code max-nearby-entities} check.
+ *
+ * <p>A chunk's entities are walked at most once per refresh interval, and only
+ * when a spawner near it asks; the snapshot is shared by every spawner looking
+ * at that chunk, so a dense farm costs one chunk walk per interval instead of
+ * one entity query per spawner cycle.  Queries still filter the snapshot by
+ * distance in all three axes, so mobs far above or below a spawner do not
+ * count.  Snapshots are dropped when their chunk or world unloads.  Main
+ * thread only.</p>
+ */
+final class ChunkEntityCounter {
+
+    /** Block positions of the living entities in one chunk at the last walk. */
+    private static final class Snapshot {
+        int[] coords = new int[24]; // x, y, z per entity
+        int size;
+        long countedTick;
+
+        void add(int x, int y, int z) {
+            if (size * 3 == coords.length) coords = Arrays.copyOf(coords, coords.length * 2);
+            coords[size * 3]     = x;
+            coords[size * 3 + 1] = y;
+            coords[size * 3 + 2] = z;
+            size++;
+        }
+    }
+
+    private final Map<UUID, Map<Long, Snapshot>> worlds = new HashMap<>();
+    private final int refreshTicks;
+
+    ChunkEntityCounter(int refreshTicks) {
+        this.refreshTicks = Math.max(1, refreshTicks);
+    }
+
+    /**
+     * Living entities in the cube of {@code radius} blocks around a block, as
+     * of the last walk of each chunk.  Unloaded chunks count as empty and are
+     * never loaded.
+     */
+    int livingAround(World world, int blockX, int blockY, int blockZ, int radius, long currentTick) {
+        int total = 0;
+        for (int cx = (blockX - radius) >> 4; cx <= (blockX + radius) >> 4; cx++) {
+            for (int cz = (blockZ - radius) >> 4; cz <= (blockZ + radius) >> 4; cz++) {
+                Snapshot snapshot = snapshot(world, cx, cz, currentTick);
+                if (snapshot == null) continue;
+                int[] coords = snapshot.coords;
+                for (int i = 0; i < snapshot.size * 3; i += 3) {
+                    if (Math.abs(coords[i] - blockX) <= radius
+                            && Math.abs(coords[i + 1] - blockY) <= radius
+                            && Math.abs(coords[i + 2] - blockZ) <= radius) {
+                        total++;
+                    }
+                }
+            }
+        }
+        return total;
+    }
+
+    private Snapshot snapshot(World world, int chunkX, int chunkZ, long currentTick) {
+        if (!world.isChunkLoaded(chunkX, chunkZ)) return null;
+        Map<Long, Snapshot> chunks = worlds.computeIfAbsent(world.getUID(), k -> new HashMap<>());
+        Snapshot snapshot = chunks.computeIfAbsent(BlockKey.chunk(chunkX, chunkZ), k -> new Snapshot());
+        if (snapshot.countedTick == 0 || currentTick - snapshot.countedTick >= refreshTicks) {
+            snapshot.size = 0;
+            for (Entity entity : world.getChunkAt(chunkX, chunkZ).getEntities()) {
+                if (!(entity instanceof LivingEntity)) continue;
+                Location loc = entity.getLocation();
+                snapshot.add(loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
+            }
+            snapshot.countedTick = currentTick;
+        }
+        return snapshot;
+    }
+
+    /** Counts a mob spawned into a chunk whose snapshot is cached, until the next refresh. */
+    void added(World world, Location loc) {
+        Map<Long, Snapshot> chunks = worlds.get(world.getUID());
+        Snapshot snapshot = chunks != null ? chunks.get(BlockKey.chunk(loc.getBlockX() >> 4, loc.getBlockZ() >> 4)) : null;
+        if (snapshot != null) snapshot.add(loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
+    }
+
+    void evict(World world, int chunkX, int chunkZ) {
+        Map<Long, Snapshot> chunks = worlds.get(world.getUID());
+        if (chunks != null) chunks.remove(BlockKey.chunk(chunkX, chunkZ));
+    }
+
+    void evictWorld(World world) {
+        worlds.remove(world.getUID());
+    }
+
+    void clear() {
+        worlds.clear();
+    }
+}
@@ -0,0 +1,108 @@
+package com.wynvers.spawners;
+
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Writes single config.yml values in the background.
+ *
+ * <p>Changed values are collected and written together a moment after the
+ * first one, so a burst of editor edits costs one write.  A write re-reads
+ * the file, applies the changed paths, and replaces the file through a temp
+ * file and an atomic rename, so a crash mid-write never leaves a truncated
+ * config.yml behind.</p>
+ */
+final class ConfigWriter {
+
+    private static final long DELAY_MILLIS = 1000;
+
+    private final File file;
+    private final Logger logger;
+    private final ScheduledExecutorService executor;
+    private final Map<String, Object> pending = new LinkedHashMap<>(); // guarded by this
+    private boolean scheduled;                                         // guarded by this
+
+    ConfigWriter(File file, Logger logger) {
+        this.file = file;
+        this.logger = logger;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "WSpawners-Config-Writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** Queues {@code path = value} for config.yml.  A later value for the same path replaces it. */
+    synchronized void set(String path, Object value) {
+        pending.put(path, value);
+        if (!scheduled && !executor.isShutdown()) {
+            scheduled = true;
+            executor.schedule(this::flush, DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Writes every queued value now, on the calling thread.  Call before
+     * config.yml is read back from disk: when this returns, any write already
+     * in progress on the writer thread has reached the file as well.
+     */
+    void flush() {
+        // The file lock is taken before draining, so a flush that finds nothing
+        // queued still waits for one that drained the values and is writing them.
+        synchronized (file) {
+            Map<String, Object> changes;
+            synchronized (this) {
+                scheduled = false;
+                if (pending.isEmpty()) return;
+                changes = new LinkedHashMap<>(pending);
+                pending.clear();
+            }
+            try {
+                YamlConfiguration yaml = new YamlConfiguration();
+                if (file.exists()) yaml.load(file);
+                changes.forEach(yaml::set);
+                writeAtomically(yaml.saveToString());
+            } catch (IOException | InvalidConfigurationException e) {
+                logger.log(Level.SEVERE, "Failed to save " + changes.size() + " editor change(s) to "
+                        + file.getName(), e);
+            }
+        }
+    }
+
+    private void writeAtomically(String contents) throws IOException {
+        Path target = file.toPath();
+        Path temp = target.resolveSibling(file.getName() + ".tmp");
+        Files.write(temp, contents.getBytes(StandardCharsets.UTF_8));
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /** Writes anything still queued and stops the writer thread. */
+    void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+}
@@ -0,0 +1,78 @@
+package com.wynvers.spawners;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.logging.Logger;
+
+/**
+ * One writer connection plus a fixed set of reader connections.  With SQLite
+ * in WAL mode readers see the last committed state and never block the writer.
+ * Readers are validated as they are handed out, the writer at the start of
+ * every transaction; dead connections are reopened through the {@link Opener}.
+ */
+final class ConnectionPool {
+
+    @FunctionalInterface
+    interface Opener {
+        Connection open(boolean reader) throws SQLException;
+    }
+
+    private final PooledConnection writer;
+    private final BlockingQueue<PooledConnection> readers;
+    private final List<PooledConnection> all = new ArrayList<>();
+
+    ConnectionPool(Opener opener, int readerCount) throws SQLException {
+        readerCount = Math.max(1, readerCount);
+        this.readers = new ArrayBlockingQueue<>(readerCount);
+        try {
+            writer = new PooledConnection(opener, false);
+            all.add(writer);
+            for (int i = 0; i < readerCount; i++) {
+                PooledConnection reader = new PooledConnection(opener, true);
+                all.add(reader);
+                readers.add(reader);
+            }
+        } catch (SQLException e) {
+            for (PooledConnection conn : all) conn.close(Logger.getAnonymousLogger());
+            throw e;
+        }
+    }
+
+    /** The single writer connection; only the writer thread may use it. */
+    PooledConnection writer() {
+        return writer;
+    }
+
+    /**
+     * Takes a reader connection, waiting if all of them are in use.  A dead
+     * connection is reopened first; if that fails it goes back to the pool.
+     */
+    PooledConnection acquireReader() throws InterruptedException, SQLException {
+        PooledConnection reader = readers.take();
+        try {
+            reader.validate();
+        } catch (SQLException e) {
+            readers.add(reader);
+            throw e;
+        }
+        return reader;
+    }
+
+    void releaseReader(PooledConnection reader) {
+        readers.add(reader);
+    }
+
+    int readerCount() {
+        return all.size() - 1;
+    }
+
+    void close(Logger logger) {
+        for (PooledConnection conn : all) conn.close(logger);
+        all.clear();
+        readers.clear();
+    }
+}
@@ -0,0 +1,366 @@
+package com.wynvers.spawners;
+
+import com.wynvers.spawners.SpawnerDatabase.SpawnerRecord;
+import com.wynvers.spawners.SpawnerDatabase.TickState;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * SQL shared by the JDBC backends.  Subclasses supply connections, schema
+ * migrations and the dialect's upsert clause.
+ */
+abstract class JdbcSpawnerStorage implements SpawnerStorage {
+
+    /** Columns written by {@link #upsertSpawners}, in parameter order. */
+    private static final String[] RECORD_COLUMNS = {
+        "player_uuid", "player_name", "spawner_id", "world", "x", "y", "z",
+        "entity_type", "mythic_mob_type", "delay", "required_player_range",
+        "min_radius", "max_radius", "min_amount", "max_amount", "chunk_x", "chunk_z", "stack_size"
+    };
+
+    protected final Logger logger;
+    private String upsertSql; // built on first use; only the writer thread upserts
+
+    JdbcSpawnerStorage(Logger logger) {
+        this.logger = logger;
+    }
+
+    /** Opens a raw connection; reader connections may be made read-only. */
+    protected abstract Connection openConnection(boolean reader) throws SQLException;
+
+    /** Brings the schema up to date.  Called once on the writer connection. */
+    protected abstract void migrate(Connection conn) throws SQLException;
+
+    /** Start of the conflict clause, e.g. {@code ON CONFLICT(world, x, y, z) DO UPDATE SET}. */
+    protected abstract String upsertClause();
+
+    /** Expression for the new value of {@code column} inside the conflict clause. */
+    protected abstract String upsertValue(String column);
+
+    /** {@code WHERE} condition matching {@code player_name} case-insensitively against one parameter. */
+    protected abstract String nameMatch();
+
+    @Override
+    public ConnectionPool openPool(int readerConnections) throws SQLException {
+        // The writer connection is opened first so migrations finish before any reader opens.
+        // A writer reopened after its connection died runs them again and finds the schema current.
+        return new ConnectionPool(reader -> {
+            Connection conn = openConnection(reader);
+            if (!reader) {
+                try {
+                    migrate(conn);
+                } catch (SQLException e) {
+                    conn.close();
+                    throw e;
+                }
+            }
+            return conn;
+        }, readerConnections);
+    }
+
+    @Override
+    public void upsertSpawners(PooledConnection conn, List<SpawnerRecord> records) throws SQLException {
+        if (records.isEmpty()) return;
+        PreparedStatement ps = conn.prepare(upsertSql());
+        for (SpawnerRecord r : records) {
+            ps.setString(1, r.getPlayerUuid());
+            ps.setString(2, r.getPlayerName());
+            ps.setString(3, r.getSpawnerId());
+            ps.setString(4, r.getWorld());
+            ps.setInt(5, r.getX());
+            ps.setInt(6, r.getY());
+            ps.setInt(7, r.getZ());
+            ps.setString(8, r.getEntityType());
+            ps.setString(9, r.getMythicMobType());
+            ps.setInt(10, r.getDelay());
+            ps.setInt(11, r.getRequiredPlayerRange());
+            ps.setInt(12, r.getMinRadius());
+            ps.setInt(13, r.getMaxRadius());
+            ps.setInt(14, r.getMinAmount());
+            ps.setInt(15, r.getMaxAmount());
+            ps.setInt(16, r.getX() >> 4);
+            ps.setInt(17, r.getZ() >> 4);
+            ps.setInt(18, r.getStackSize());
+            ps.addBatch();
+        }
+        ps.executeBatch();
+    }
+
+    private String upsertSql() {
+        if (upsertSql != null) return upsertSql;
+        StringBuilder sql = new StringBuilder("INSERT INTO player_spawners (")
+                .append(String.join(", ", RECORD_COLUMNS))
+                .append(") VALUES (")
+                .append("?, ".repeat(RECORD_COLUMNS.length - 1)).append("?) ")
+                .append(upsertClause()).append(' ');
+        for (String column : RECORD_COLUMNS) {
+            if (column.equals("world") || column.equals("x") || column.equals("y") || column.equals("z")) continue;
+            sql.append(column).append(" = ").append(upsertValue(column)).append(", ");
+        }
+        sql.append("countdown = NULL, placed_at = CURRENT_TIMESTAMP");
+        return upsertSql = sql.toString();
+    }
+
+    @Override
+    public void deleteSpawners(PooledConnection conn, List<Pos> positions) throws SQLException {
+        if (positions.isEmpty()) return;
+        PreparedStatement ps = conn.prepare("DELETE FROM player_spawners WHERE world = ? AND x = ? AND y = ? AND z = ?");
+        for (Pos pos : positions) {
+            ps.setString(1, pos.world);
+            ps.setInt(2, pos.x);
+            ps.setInt(3, pos.y);
+            ps.setInt(4, pos.z);
+            ps.addBatch();
+        }
+        ps.executeBatch();
+    }
+
+    @Override
+    public void saveCountdowns(PooledConnection conn, List<TickState> states) throws SQLException {
+        if (states.isEmpty()) return;
+        PreparedStatement ps = conn.prepare(
+                "UPDATE player_spawners SET countdown = ? WHERE world = ? AND x = ? AND y = ? AND z = ?");
+        for (TickState state : states) {
+            ps.setInt(1, state.getCountdown());
+            ps.setString(2, state.getWorld());
+            ps.setInt(3, state.getX());
+            ps.setInt(4, state.getY());
+            ps.setInt(5, state.getZ());
+            ps.addBatch();
+        }
+        ps.executeBatch();
+    }
+
+    @Override
+    public void updateStackSizes(PooledConnection conn, Map<Pos, Integer> stackSizes) throws SQLException {
+        if (stackSizes.isEmpty()) return;
+        PreparedStatement ps = conn.prepare(
+                "UPDATE player_spawners SET stack_size = ? WHERE world = ? AND x = ? AND y = ? AND z = ?");
+        for (Map.Entry<Pos, Integer> entry : stackSizes.entrySet()) {
+            Pos pos = entry.getKey();
+            ps.setInt(1, entry.getValue());
+            ps.setString(2, pos.world);
+            ps.setInt(3, pos.x);
+            ps.setInt(4, pos.y);
+            ps.setInt(5, pos.z);
+            ps.addBatch();
+        }
+        ps.executeBatch();
+    }
+
+    @Override
+    public UUID getOwner(PooledConnection conn, String world, int x, int y, int z) throws SQLException {
+        PreparedStatement ps = conn.prepare(
+                "SELECT player_uuid FROM player_spawners WHERE world = ? AND x = ? AND y = ? AND z = ?");
+        ps.setString(1, world);
+        ps.setInt(2, x);
+        ps.setInt(3, y);
+        ps.setInt(4, z);
+        try (ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? UUID.fromString(rs.getString("player_uuid")) : null;
+        }
+    }
+
+    @Override
+    public List<SpawnerRecord> getSpawners(PooledConnection conn, UUID playerUuid) throws SQLException {
+        PreparedStatement ps = conn.prepare("SELECT * FROM player_spawners WHERE player_uuid = ?");
+        ps.setString(1, playerUuid.toString());
+        return readRecords(ps);
+    }
+
+    @Override
+    public List<SpawnerRecord> getSpawnersByName(PooledConnection conn, String playerName) throws SQLException {
+        PreparedStatement ps = conn.prepare("SELECT * FROM player_spawners WHERE " + nameMatch());
+        ps.setString(1, playerName);
+        return readRecords(ps);
+    }
+
+    @Override
+    public List<SpawnerRecord> getSpawnersPage(PooledConnection conn, UUID playerUuid, Pos after, int limit)
+            throws SQLException {
+        return readPage(conn, "player_uuid = ?", playerUuid.toString(), after, limit);
+    }
+
+    @Override
+    public List<SpawnerRecord> getSpawnersPageByName(PooledConnection conn, String playerName, Pos after, int limit)
+            throws SQLException {
+        return readPage(conn, nameMatch(), playerName, after, limit);
+    }
+
+    /**
+     * Keyset pagination: the composite (owner, world, x, y, z) indexes let
+     * every page start with an index seek instead of skipping rows.
+     */
+    private List<SpawnerRecord> readPage(PooledConnection conn, String ownerMatch, String owner, Pos after, int limit)
+            throws SQLException {
+        String sql = "SELECT * FROM player_spawners WHERE " + ownerMatch
+                + (after != null ? " AND (world, x, y, z) > (?, ?, ?, ?)" : "")
+                + " ORDER BY world, x, y, z LIMIT ?";
+        PreparedStatement ps = conn.prepare(sql);
+        int i = 1;
+        ps.setString(i++, owner);
+        if (after != null) {
+            ps.setString(i++, after.world);
+            ps.setInt(i++, after.x);
+            ps.setInt(i++, after.y);
+            ps.setInt(i++, after.z);
+        }
+        ps.setInt(i, limit);
+        return readRecords(ps);
+    }
+
+    @Override
+    public int countSpawners(PooledConnection conn, UUID playerUuid) throws SQLException {
+        PreparedStatement ps = conn.prepare("SELECT COUNT(*) FROM player_spawners WHERE player_uuid = ?");
+        ps.setString(1, playerUuid.toString());
+        return readCount(ps);
+    }
+
+    @Override
+    public int countSpawnersByName(PooledConnection conn, String playerName) throws SQLException {
+        PreparedStatement ps = conn.prepare("SELECT COUNT(*) FROM player_spawners WHERE " + nameMatch());
+        ps.setString(1, playerName);
+        return readCount(ps);
+    }
+
+    private static int readCount(PreparedStatement ps) throws SQLException {
+        try (ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    @Override
+    public Map<Long, UUID> getChunkOwners(PooledConnection conn, String world, int chunkX, int chunkZ)
+            throws SQLException {
+        PreparedStatement ps = conn.prepare("SELECT x, y, z, player_uuid FROM player_spawners"
+                + " WHERE world = ? AND chunk_x = ? AND chunk_z = ?");
+        ps.setString(1, world);
+        ps.setInt(2, chunkX);
+        ps.setInt(3, chunkZ);
+        Map<Long, UUID> rows = new HashMap<>();
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                rows.put(BlockKey.pack(rs.getInt("x"), rs.getInt("y"), rs.getInt("z")),
+                        UUID.fromString(rs.getString("player_uuid")));
+            }
+        }
+        return rows;
+    }
+
+    @Override
+    public List<SpawnerRecord> getSpawnersInRegion(PooledConnection conn, String world,
+                                                   int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ)
+            throws SQLException {
+        PreparedStatement ps;
+        if (minChunkX == maxChunkX && minChunkZ == maxChunkZ) {
+            ps = conn.prepare("SELECT * FROM player_spawners WHERE world = ? AND chunk_x = ? AND chunk_z = ?");
+            ps.setString(1, world);
+            ps.setInt(2, minChunkX);
+            ps.setInt(3, minChunkZ);
+        } else {
+            ps = conn.prepare("SELECT * FROM player_spawners"
+                    + " WHERE world = ? AND chunk_x BETWEEN ? AND ? AND chunk_z BETWEEN ? AND ?");
+            ps.setString(1, world);
+            ps.setInt(2, minChunkX);
+            ps.setInt(3, maxChunkX);
+            ps.setInt(4, minChunkZ);
+            ps.setInt(5, maxChunkZ);
+        }
+        return readRecords(ps);
+    }
+
+    @Override
+    public void streamTickStates(int batchSize, Consumer<List<TickState>> batchConsumer) throws SQLException {
+        String sql = "SELECT world, x, y, z, spawner_id, delay, countdown FROM player_spawners"
+                + " ORDER BY world, chunk_x, chunk_z";
+        try (Connection conn = openConnection(true);
+             Statement stmt = conn.createStatement()) {
+            stmt.setFetchSize(batchSize);
+            try (ResultSet rs = stmt.executeQuery(sql)) {
+                List<TickState> batch = new ArrayList<>(batchSize);
+                while (rs.next()) {
+                    int countdown = rs.getInt("countdown");
+                    if (rs.wasNull() || countdown <= 0) countdown = rs.getInt("delay");
+                    batch.add(new TickState(rs.getString("world"), rs.getInt("x"), rs.getInt("y"), rs.getInt("z"),
+                            rs.getString("spawner_id"), countdown));
+                    if (batch.size() >= batchSize) {
+                        batchConsumer.accept(batch);
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+                if (!batch.isEmpty()) batchConsumer.accept(batch);
+            }
+        }
+    }
+
+    /** Whether an index with the given name exists on {@code player_spawners}. */
+    protected static boolean indexExists(Connection conn, String index) throws SQLException {
+        DatabaseMetaData meta = conn.getMetaData();
+        for (String table : new String[] {"player_spawners", "PLAYER_SPAWNERS"}) {
+            try (ResultSet rs = meta.getIndexInfo(conn.getCatalog(), null, table, false, true)) {
+                while (rs.next()) {
+                    if (index.equalsIgnoreCase(rs.getString("INDEX_NAME"))) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether {@code player_spawners} has a column with the given name.  Like
+     * {@link #indexExists}, checks both identifier cases, since H2 stores
+     * unquoted names in upper case.
+     */
+    protected static boolean columnExists(Connection conn, String column) throws SQLException {
+        DatabaseMetaData meta = conn.getMetaData();
+        for (String table : new String[] {"player_spawners", "PLAYER_SPAWNERS"}) {
+            try (ResultSet rs = meta.getColumns(conn.getCatalog(), null, table, null)) {
+                while (rs.next()) {
+                    if (column.equalsIgnoreCase(rs.getString("COLUMN_NAME"))) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static List<SpawnerRecord> readRecords(PreparedStatement ps) throws SQLException {
+        List<SpawnerRecord> records = new ArrayList<>();
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) records.add(readRecord(rs));
+        }
+        return records;
+    }
+
+    private static SpawnerRecord readRecord(ResultSet rs) throws SQLException {
+        return new SpawnerRecord(
+            rs.getString("player_uuid"),
+            rs.getString("player_name"),
+            rs.getString("spawner_id"),
+            rs.getString("world"),
+            rs.getInt("x"),
+            rs.getInt("y"),
+            rs.getInt("z"),
+            rs.getString("entity_type"),
+            rs.getString("mythic_mob_type"),
+            rs.getInt("delay"),
+            rs.getInt("required_player_range"),
+            rs.getInt("min_radius"),
+            rs.getInt("max_radius"),
+            rs.getInt("min_amount"),
+            rs.getInt("max_amount"),
+            Math.max(1, rs.getInt("stack_size"))
+        );
+    }
+}
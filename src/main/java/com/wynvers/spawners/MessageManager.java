@@ -10,11 +10,25 @@ import java.io.File;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 /**
  * Manages all plugin messages loaded from messages.yml.
  * Messages use MiniMessage format and are serialized to legacy strings for Spigot compatibility.
+ *
+ * <p>Every message is compiled once per {@link #reload()} into a {@link Template}:
+ * the legacy output of the message with its {@code {placeholder}} slots cut
+ * out.  {@link #get} then only splices the values in.  Values containing
+ * markup still go through a full MiniMessage parse, since they can restyle
+ * the text after them.</p>
+ *
+ * <p>Messages are also rendered on database threads (spawner listings).
+ * {@link #reload()} therefore builds the new configuration and templates
+ * completely before publishing them, and never changes them afterwards.</p>
  */
 public class MessageManager {
 
@@ -27,7 +41,8 @@ public class MessageManager {
 
     private final JavaPlugin plugin;
     private final Logger logger;
-    private YamlConfiguration messages;
+    private volatile YamlConfiguration messages;
+    private volatile Map<String, Template> templates = new ConcurrentHashMap<>();
 
     public MessageManager(JavaPlugin plugin) {
         this.plugin = plugin;
@@ -43,22 +58,39 @@ public class MessageManager {
         if (!file.exists()) {
             plugin.saveResource("messages.yml", false);
         }
-        messages = YamlConfiguration.loadConfiguration(file);
+        YamlConfiguration loaded = YamlConfiguration.loadConfiguration(file);
 
         // Merge defaults from the jar so new keys are always available
         InputStream defaults = plugin.getResource("messages.yml");
         if (defaults != null) {
             YamlConfiguration defConfig = YamlConfiguration.loadConfiguration(
                     new InputStreamReader(defaults, StandardCharsets.UTF_8));
-            messages.setDefaults(defConfig);
+            loaded.setDefaults(defConfig);
         }
-        logger.info("messages.yml loaded.");
+
+        Map<String, Template> compiled = new ConcurrentHashMap<>();
+        for (String key : loaded.getKeys(true)) {
+            if (loaded.isString(key)) compiled.put(key, Template.compile(getRaw(loaded, key)));
+        }
+        if (loaded.getDefaults() != null) {
+            for (String key : loaded.getDefaults().getKeys(true)) {
+                if (loaded.isString(key)) compiled.computeIfAbsent(key, k -> Template.compile(getRaw(loaded, k)));
+            }
+        }
+        // Publish fully built; readers on other threads may pick up either set, never a half-loaded one.
+        messages  = loaded;
+        templates = compiled;
+        logger.info("messages.yml loaded (" + compiled.size() + " messages).");
     }
 
     /**
      * Get the raw MiniMessage string for a key (before placeholder replacement).
      */
     public String getRaw(String key) {
+        return getRaw(messages, key);
+    }
+
+    private static String getRaw(YamlConfiguration messages, String key) {
         String value = messages.getString(key);
         if (value != null) return value;
         return "<red>Missing message: " + key.replace("<", "\\<");
@@ -80,9 +112,8 @@ public class MessageManager {
      * @param replacements Pairs of placeholder/value: "player", "Steve", "id", "zombie_spawner"
      */
     public String get(String key, String... replacements) {
-        String raw = getRaw(key);
-        raw = applyReplacements(raw, replacements);
-        return toLegacy(raw);
+        Template template = templates.computeIfAbsent(key, k -> Template.compile(getRaw(k)));
+        return template.render(replacements);
     }
 
     /**
@@ -92,6 +123,111 @@ public class MessageManager {
         return toLegacy(miniMessageText);
     }
 
+    // ---- Templates ----
+
+    /**
+     * A message compiled to legacy text.  {@code parts} holds the legacy text
+     * between placeholder slots, so {@code parts[0] + value(slots[0]) + parts[1] ...}
+     * is what parsing the message with plain-text values would give.
+     */
+    private static final class Template {
+        private static final char SLOT_START = '\uE000';
+        private static final char SLOT_END   = '\uE001';
+
+        final String raw;
+        final String[] slots;
+        final String[] parts; // null: slots cannot be spliced, always parse
+
+        private Template(String raw, String[] slots, String[] parts) {
+            this.raw   = raw;
+            this.slots = slots;
+            this.parts = parts;
+        }
+
+        /**
+         * Parses the message once with a marker in each slot and cuts the
+         * legacy output at the markers.  Slots inside a tag (e.g. a click
+         * command) vanish or change meaning once parsed, so those messages
+         * are left to the full parse.
+         */
+        static Template compile(String raw) {
+            List<String> slots = new ArrayList<>();
+            StringBuilder marked = new StringBuilder(raw.length());
+            boolean spliceable = true;
+            int i = 0;
+            while (i < raw.length()) {
+                int open = raw.indexOf('{', i);
+                int close = open < 0 ? -1 : raw.indexOf('}', open + 1);
+                if (close < 0 || !isPlaceholderName(raw, open + 1, close)) {
+                    int end = open < 0 ? raw.length() : open + 1;
+                    marked.append(raw, i, end);
+                    i = end;
+                    continue;
+                }
+                if (raw.lastIndexOf('<', open) > raw.lastIndexOf('>', open)) spliceable = false;
+                marked.append(raw, i, open).append(SLOT_START).append(slots.size()).append(SLOT_END);
+                slots.add(raw.substring(open + 1, close));
+                i = close + 1;
+            }
+            if (slots.isEmpty()) return new Template(raw, new String[0], new String[] { toLegacy(raw) });
+            String[] parts = spliceable ? split(toLegacy(marked.toString()), slots.size()) : null;
+            return new Template(raw, slots.toArray(new String[0]), parts);
+        }
+
+        private static boolean isPlaceholderName(String text, int start, int end) {
+            if (start == end) return false;
+            for (int i = start; i < end; i++) {
+                char c = text.charAt(i);
+                if (!Character.isLetterOrDigit(c) && c != '_' && c != '-') return false;
+            }
+            return true;
+        }
+
+        /** Cuts legacy text at the slot markers, or returns null if they did not survive in order. */
+        private static String[] split(String legacy, int slotCount) {
+            String[] parts = new String[slotCount + 1];
+            int from = 0;
+            for (int slot = 0; slot < slotCount; slot++) {
+                String marker = "" + SLOT_START + slot + SLOT_END;
+                int at = legacy.indexOf(marker, from);
+                if (at < 0) return null;
+                parts[slot] = legacy.substring(from, at);
+                from = at + marker.length();
+            }
+            parts[slotCount] = legacy.substring(from);
+            return legacy.indexOf(SLOT_START, from) < 0 ? parts : null;
+        }
+
+        String render(String... replacements) {
+            if (slots.length == 0) return parts[0];
+            if (parts == null || hasMarkup(replacements)) return toLegacy(applyReplacements(raw, replacements));
+            StringBuilder out = new StringBuilder(raw.length() + 32);
+            for (int i = 0; i < slots.length; i++) {
+                out.append(parts[i]).append(valueOf(slots[i], replacements));
+            }
+            return out.append(parts[slots.length]).toString();
+        }
+
+        private static String valueOf(String slot, String... replacements) {
+            for (int i = 0; i + 1 < replacements.length; i += 2) {
+                if (replacements[i].equals(slot)) return replacements[i + 1];
+            }
+            return "{" + slot + "}"; // left as-is, like applyReplacements does
+        }
+
+        /** Tags, escapes and nested placeholders in a value need the full parse. */
+        private static boolean hasMarkup(String... replacements) {
+            for (int i = 1; i < replacements.length; i += 2) {
+                String value = replacements[i];
+                for (int c = 0; c < value.length(); c++) {
+                    char ch = value.charAt(c);
+                    if (ch == '<' || ch == '\\' || ch == '{' || ch == SLOT_START) return true;
+                }
+            }
+            return false;
+        }
+    }
+
     /**
      * Replace {key} placeholders in a string.
      */
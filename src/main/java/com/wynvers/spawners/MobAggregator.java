@@ -0,0 +1,122 @@
+package com.wynvers.spawners;
+
+import org.bukkit.Location;
+import org.bukkit.NamespacedKey;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+
+import java.util.Locale;
+
+/**
+ * Folds mobs from spawners in {@code aggregate} mode into one living entity
+ * that carries a count, instead of spawning every mob as its own entity.
+ *
+ * <p>Each spawner remembers the entity it last folded into
+ * ({@link TickedSpawner#aggregate}); new mobs join it while it is alive, near
+ * the spawn point and below {@code max-count}.  Only when it is gone are the
+ * nearby entities searched for another stack of the same definition.  The
+ * count lives in the entity's PDC and is shown as its custom name;
+ * {@link SpawnerTickManager} spawns the next mob in place when an aggregated
+ * entity dies.  Main thread only.</p>
+ */
+final class MobAggregator {
+
+    private final NamespacedKey countKey;
+    private final NamespacedKey groupKey;
+    private final MessageManager messages;
+    private final Location scratch = new Location(null, 0, 0, 0);
+    private int radius = 8;
+    private int maxCount = 50;
+
+    MobAggregator(NamespacedKey countKey, NamespacedKey groupKey, MessageManager messages) {
+        this.countKey = countKey;
+        this.groupKey = groupKey;
+        this.messages = messages;
+    }
+
+    /**
+     * @param radius   how far from the spawn point, in blocks, a stack may be to take a mob
+     * @param maxCount most mobs one entity carries; a full stack makes the next mob start a new one
+     */
+    void setSettings(int radius, int maxCount) {
+        this.radius   = Math.max(1, radius);
+        this.maxCount = Math.max(1, maxCount);
+    }
+
+    /**
+     * Folds up to {@code amount} mobs of {@code data} into a stack near
+     * {@code location}.
+     *
+     * @return how many mobs were folded in; 0 if a new entity has to be spawned
+     */
+    int absorb(TickedSpawner spawner, SpawnerData data, Location location, int amount) {
+        LivingEntity target = spawner.aggregate;
+        if (!canJoin(target, data.getId(), location)) {
+            target = findNearby(data.getId(), location);
+            spawner.aggregate = target;
+        }
+        if (target == null) return 0;
+        int count = count(target);
+        int folded = Math.min(amount, maxCount - count);
+        setCount(target, data, count + folded);
+        return folded;
+    }
+
+    private LivingEntity findNearby(String group, Location location) {
+        World world = location.getWorld();
+        for (Entity entity : world.getNearbyEntities(location, radius, radius, radius,
+                e -> e instanceof LivingEntity && canJoin((LivingEntity) e, group, location))) {
+            return (LivingEntity) entity;
+        }
+        return null;
+    }
+
+    private boolean canJoin(LivingEntity entity, String group, Location location) {
+        if (entity == null || !entity.isValid() || entity.getWorld() != location.getWorld()) return false;
+        PersistentDataContainer pdc = entity.getPersistentDataContainer();
+        Integer count = pdc.get(countKey, PersistentDataType.INTEGER);
+        if (count == null || count >= maxCount || !group.equals(pdc.get(groupKey, PersistentDataType.STRING))) {
+            return false;
+        }
+        return entity.getLocation(scratch).distanceSquared(location) <= (double) radius * radius;
+    }
+
+    /** Marks a freshly spawned mob of {@code data} as a stack of {@code count}. */
+    void start(LivingEntity entity, SpawnerData data, int count) {
+        entity.getPersistentDataContainer().set(groupKey, PersistentDataType.STRING, data.getId());
+        setCount(entity, data, count);
+    }
+
+    private void setCount(LivingEntity entity, SpawnerData data, int count) {
+        entity.getPersistentDataContainer().set(countKey, PersistentDataType.INTEGER, count);
+        entity.setCustomName(messages.get("aggregate-name", "count", String.valueOf(count), "name", label(data)));
+        entity.setCustomNameVisible(true);
+    }
+
+    /** Mobs carried by an entity; 0 if it is not an aggregated stack. */
+    int count(Entity entity) {
+        Integer count = entity.getPersistentDataContainer().get(countKey, PersistentDataType.INTEGER);
+        return count != null ? count : 0;
+    }
+
+    /** ID of the definition an aggregated entity was spawned from, or {@code null}. */
+    String group(Entity entity) {
+        return entity.getPersistentDataContainer().get(groupKey, PersistentDataType.STRING);
+    }
+
+    private static String label(SpawnerData data) {
+        if (data.isMythicMob()) return data.getMythicMobType();
+        EntityType type = data.getEntityType();
+        StringBuilder label = new StringBuilder();
+        for (String word : type.name().toLowerCase(Locale.ROOT).split("_")) {
+            if (word.isEmpty()) continue;
+            if (label.length() > 0) label.append(' ');
+            label.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+        }
+        return label.toString();
+    }
+}
@@ -0,0 +1,182 @@
+package com.wynvers.spawners;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * Networked MySQL / MariaDB backend, for several servers sharing one spawner
+ * table.  Any JDBC URL whose driver speaks MySQL syntax works, including an
+ * in-process H2 database in {@code MODE=MySQL} for testing.
+ *
+ * <p>Relies on the server's default case-insensitive collation for player
+ * name lookups.</p>
+ */
+final class MySqlSpawnerStorage extends JdbcSpawnerStorage {
+
+    /** Current schema version, stored in {@code wspawners_schema}. */
+    private static final int SCHEMA_VERSION = 4;
+
+    private final String url;
+    private final Properties properties = new Properties();
+
+    MySqlSpawnerStorage(String url, String username, String password, Logger logger) {
+        super(logger);
+        this.url = url;
+        if (username != null && !username.isEmpty()) properties.setProperty("user", username);
+        if (password != null && !password.isEmpty()) properties.setProperty("password", password);
+        if (url.startsWith("jdbc:mysql:") || url.startsWith("jdbc:mariadb:")) {
+            // Send each executeBatch() as multi-row statements instead of one round trip per row.
+            properties.setProperty("rewriteBatchedStatements", "true");
+        }
+        if (url.startsWith("jdbc:mysql:")) {
+            // Connector/J ignores setFetchSize() and buffers the whole result without this,
+            // which would load every spawner row at once during the warm start.
+            properties.setProperty("useCursorFetch", "true");
+        }
+    }
+
+    @Override
+    public String describe() {
+        return "MySQL";
+    }
+
+    @Override
+    protected Connection openConnection(boolean reader) throws SQLException {
+        Connection conn = DriverManager.getConnection(url, properties);
+        if (reader) conn.setReadOnly(true);
+        return conn;
+    }
+
+    @Override
+    protected String upsertClause() {
+        return "ON DUPLICATE KEY UPDATE";
+    }
+
+    @Override
+    protected String upsertValue(String column) {
+        return "VALUES(" + column + ")";
+    }
+
+    @Override
+    protected String nameMatch() {
+        return "player_name = ?";
+    }
+
+    // ---- Schema migrations ----
+
+    /**
+     * Brings the schema up to {@link #SCHEMA_VERSION}.  MySQL commits DDL
+     * implicitly, so every step is written to be safe to re-run.
+     */
+    @Override
+    protected void migrate(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate("CREATE TABLE IF NOT EXISTS wspawners_schema (version INT NOT NULL)");
+        }
+        int version = schemaVersion(connection);
+        if (version > SCHEMA_VERSION) {
+            logger.warning("Spawner database has schema version " + version + ", newer than this plugin supports ("
+                    + SCHEMA_VERSION + "). Continuing without migrating.");
+            return;
+        }
+        for (int target = version + 1; target <= SCHEMA_VERSION; target++) {
+            applyMigration(connection, target);
+            try (Statement stmt = connection.createStatement()) {
+                stmt.executeUpdate("DELETE FROM wspawners_schema");
+                stmt.executeUpdate("INSERT INTO wspawners_schema (version) VALUES (" + target + ")");
+            }
+            logger.info("Migrated spawner database to schema version " + target + ".");
+        }
+    }
+
+    private void applyMigration(Connection connection, int version) throws SQLException {
+        switch (version) {
+            case 1:
+                try (Statement stmt = connection.createStatement()) {
+                    stmt.executeUpdate(
+                        "CREATE TABLE IF NOT EXISTS player_spawners ("
+                        + " id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,"
+                        + " player_uuid CHAR(36) NOT NULL,"
+                        + " player_name VARCHAR(32) NOT NULL,"
+                        + " spawner_id VARCHAR(64) NOT NULL,"
+                        + " world VARCHAR(64) NOT NULL,"
+                        + " x INT NOT NULL,"
+                        + " y INT NOT NULL,"
+                        + " z INT NOT NULL,"
+                        + " entity_type VARCHAR(64),"
+                        + " mythic_mob_type VARCHAR(128),"
+                        + " delay INT,"
+                        + " required_player_range INT,"
+                        + " min_radius INT,"
+                        + " max_radius INT,"
+                        + " min_amount INT,"
+                        + " max_amount INT,"
+                        + " countdown INT,"
+                        + " placed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,"
+                        + " UNIQUE KEY uk_player_spawners_position (world, x, y, z),"
+                        + " KEY idx_player_spawners_uuid (player_uuid),"
+                        + " KEY idx_player_spawners_name (player_name)"
+                        + ")"
+                    );
+                }
+                break;
+            case 2:
+                // Owner + position indexes serve both the owner lookups and keyset pagination.
+                try (Statement stmt = connection.createStatement()) {
+                    if (!indexExists(connection, "idx_player_spawners_owner_pos")) {
+                        stmt.executeUpdate("CREATE INDEX idx_player_spawners_owner_pos"
+                                + " ON player_spawners (player_uuid, world, x, y, z)");
+                    }
+                    if (!indexExists(connection, "idx_player_spawners_name_pos")) {
+                        stmt.executeUpdate("CREATE INDEX idx_player_spawners_name_pos"
+                                + " ON player_spawners (player_name, world, x, y, z)");
+                    }
+                    if (indexExists(connection, "idx_player_spawners_uuid")) {
+                        stmt.executeUpdate("DROP INDEX idx_player_spawners_uuid ON player_spawners");
+                    }
+                    if (indexExists(connection, "idx_player_spawners_name")) {
+                        stmt.executeUpdate("DROP INDEX idx_player_spawners_name ON player_spawners");
+                    }
+                }
+                break;
+            case 3:
+                try (Statement stmt = connection.createStatement()) {
+                    if (!columnExists(connection, "chunk_x")) {
+                        stmt.executeUpdate("ALTER TABLE player_spawners ADD COLUMN chunk_x INT");
+                    }
+                    if (!columnExists(connection, "chunk_z")) {
+                        stmt.executeUpdate("ALTER TABLE player_spawners ADD COLUMN chunk_z INT");
+                    }
+                    // MySQL shifts operate on unsigned values, so floor-divide instead of x >> 4.
+                    // Dividing by 16.0 keeps the division exact where INT / INT truncates (H2).
+                    stmt.executeUpdate("UPDATE player_spawners SET chunk_x = FLOOR(x / 16.0), chunk_z = FLOOR(z / 16.0)");
+                    if (!indexExists(connection, "idx_player_spawners_chunk")) {
+                        stmt.executeUpdate("CREATE INDEX idx_player_spawners_chunk"
+                                + " ON player_spawners (world, chunk_x, chunk_z)");
+                    }
+                }
+                break;
+            case 4:
+                if (!columnExists(connection, "stack_size")) {
+                    try (Statement stmt = connection.createStatement()) {
+                        stmt.executeUpdate("ALTER TABLE player_spawners ADD COLUMN stack_size INT NOT NULL DEFAULT 1");
+                    }
+                }
+                break;
+            default:
+                throw new SQLException("Unknown schema version " + version);
+        }
+    }
+
+    private int schemaVersion(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MAX(version) FROM wspawners_schema")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.wynvers.spawners;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory spawner owners, indexed per world and chunk.
+ *
+ * <p>A chunk's owners are loaded from the database when the chunk loads and
+ * dropped when it unloads.  Placements and removals write through, so once a
+ * chunk has been loaded every lookup in it is answered from memory, including
+ * "nobody owns this".  Written from the main thread and the database thread.</p>
+ */
+final class OwnershipIndex {
+
+    /** Stored for removed spawners so a late chunk load cannot bring them back. */
+    static final UUID NO_OWNER = new UUID(0L, 0L);
+
+    /** Owners of one chunk. {@code complete} once the database rows have been merged in. */
+    static final class ChunkOwners {
+        final Map<Long, UUID> owners = new ConcurrentHashMap<>();
+        final AtomicBoolean requested = new AtomicBoolean();
+        volatile boolean complete;
+    }
+
+    private final Map<String, Map<Long, ChunkOwners>> worlds = new ConcurrentHashMap<>();
+    private final AtomicLong hits   = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Claims the database load of a chunk's owners.
+     *
+     * @return the chunk's entry to merge the rows into, or {@code null} if its
+     *         load has already been requested
+     */
+    ChunkOwners requestLoad(String world, int chunkX, int chunkZ) {
+        ChunkOwners chunk = chunk(world, chunkX, chunkZ);
+        return chunk.requested.compareAndSet(false, true) ? chunk : null;
+    }
+
+    /** Merges rows read from the database.  Entries written since the read was queued win. */
+    void merge(ChunkOwners chunk, Map<Long, UUID> rows) {
+        rows.forEach(chunk.owners::putIfAbsent);
+        chunk.complete = true;
+    }
+
+    void evict(String world, int chunkX, int chunkZ) {
+        Map<Long, ChunkOwners> chunks = worlds.get(world);
+        if (chunks != null) chunks.remove(BlockKey.chunk(chunkX, chunkZ));
+    }
+
+    void evictWorld(String world) {
+        worlds.remove(world);
+    }
+
+    void put(String world, int x, int y, int z, UUID owner) {
+        chunk(world, x >> 4, z >> 4).owners.put(BlockKey.pack(x, y, z), owner);
+    }
+
+    /**
+     * Looks up an owner from memory.
+     *
+     * @return the owner, {@link #NO_OWNER} if the position is known to be
+     *         unowned, or {@code null} if it has to be read from the database
+     */
+    UUID get(String world, int x, int y, int z) {
+        Map<Long, ChunkOwners> chunks = worlds.get(world);
+        ChunkOwners chunk = chunks != null ? chunks.get(BlockKey.chunk(x >> 4, z >> 4)) : null;
+        if (chunk != null) {
+            UUID owner = chunk.owners.get(BlockKey.pack(x, y, z));
+            if (owner != null || chunk.complete) {
+                hits.incrementAndGet();
+                return owner != null ? owner : NO_OWNER;
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /** Allows a chunk whose database read failed to be requested again. */
+    void loadFailed(ChunkOwners chunk) {
+        chunk.requested.set(false);
+    }
+
+    private ChunkOwners chunk(String world, int chunkX, int chunkZ) {
+        return worlds.computeIfAbsent(world, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(BlockKey.chunk(chunkX, chunkZ), k -> new ChunkOwners());
+    }
+
+    int chunkCount() {
+        int count = 0;
+        for (Map<Long, ChunkOwners> chunks : worlds.values()) count += chunks.size();
+        return count;
+    }
+
+    long hits()   { return hits.get(); }
+    long misses() { return misses.get(); }
+
+    void clear() {
+        worlds.clear();
+    }
+}
@@ -0,0 +1,193 @@
+package com.wynvers.spawners;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Per-pass snapshot of player positions, bucketed by world and chunk.
+ *
+ * <p>Rebuilt once per tick pass so that range checks only look at the handful
+ * of chunk cells around a spawner instead of every player in the world.
+ * Cells and their arrays are reused between passes.</p>
+ */
+final class PlayerIndex {
+
+    /** Players that were in one chunk when the index was last rebuilt. */
+    private static final class Cell {
+        Player[] players = new Player[4];
+        double[] coords  = new double[12]; // x, y, z per player
+        int size;
+        int stamp;
+
+        void add(Player player, double x, double y, double z) {
+            if (size == players.length) {
+                players = Arrays.copyOf(players, size * 2);
+                coords  = Arrays.copyOf(coords, size * 6);
+            }
+            players[size] = player;
+            coords[size * 3]     = x;
+            coords[size * 3 + 1] = y;
+            coords[size * 3 + 2] = z;
+            size++;
+        }
+    }
+
+    /**
+     * Players found near one chunk by {@link #collectNearChunk}.  Owned by the
+     * caller and reused for every spawner in that chunk.
+     */
+    static final class Nearby {
+        Player[] players = new Player[8];
+        double[] coords  = new double[24];
+        int size;
+        double range = -1; // horizontal radius this result was collected with
+
+        boolean anyWithin(double x, double y, double z, double range) {
+            double rangeSq = range * range;
+            for (int i = 0; i < size; i++) {
+                double dx = coords[i * 3] - x, dy = coords[i * 3 + 1] - y, dz = coords[i * 3 + 2] - z;
+                if (dx * dx + dy * dy + dz * dz <= rangeSq) return true;
+            }
+            return false;
+        }
+
+        /** The closest player within {@code range} of the point, or {@code null}. */
+        Player nearest(double x, double y, double z, double range) {
+            Player nearest = null;
+            double bestSq = range * range;
+            for (int i = 0; i < size; i++) {
+                double dx = coords[i * 3] - x, dy = coords[i * 3 + 1] - y, dz = coords[i * 3 + 2] - z;
+                double distSq = dx * dx + dy * dy + dz * dz;
+                if (distSq <= bestSq) {
+                    bestSq = distSq;
+                    nearest = players[i];
+                }
+            }
+            return nearest;
+        }
+
+        void reset() {
+            Arrays.fill(players, 0, size, null);
+            size  = 0;
+            range = -1;
+        }
+
+        private void add(Player player, double x, double y, double z) {
+            if (size == players.length) {
+                players = Arrays.copyOf(players, size * 2);
+                coords  = Arrays.copyOf(coords, size * 6);
+            }
+            players[size] = player;
+            coords[size * 3]     = x;
+            coords[size * 3 + 1] = y;
+            coords[size * 3 + 2] = z;
+            size++;
+        }
+    }
+
+    private final Map<UUID, Map<Long, Cell>> worlds = new HashMap<>();
+    private final Location scratch = new Location(null, 0, 0, 0);
+    private int stamp;
+
+    /** Re-snapshots every online player's position. */
+    void rebuild() {
+        stamp++;
+        for (World world : Bukkit.getWorlds()) {
+            List<Player> players = world.getPlayers();
+            Map<Long, Cell> cells = worlds.get(world.getUID());
+            if (players.isEmpty()) {
+                if (cells != null) cells.clear();
+                continue;
+            }
+            if (cells == null) {
+                cells = new HashMap<>();
+                worlds.put(world.getUID(), cells);
+            }
+            for (Player player : players) {
+                Location loc = player.getLocation(scratch);
+                long key = BlockKey.chunk(loc.getBlockX() >> 4, loc.getBlockZ() >> 4);
+                Cell cell = cells.get(key);
+                if (cell == null) {
+                    cell = new Cell();
+                    cells.put(key, cell);
+                }
+                if (cell.stamp != stamp) {
+                    Arrays.fill(cell.players, 0, cell.size, null);
+                    cell.size  = 0;
+                    cell.stamp = stamp;
+                }
+                cell.add(player, loc.getX(), loc.getY(), loc.getZ());
+            }
+            for (Iterator<Cell> it = cells.values().iterator(); it.hasNext(); ) {
+                if (it.next().stamp != stamp) it.remove();
+            }
+        }
+        scratch.setWorld(null);
+    }
+
+    /**
+     * Collects every player whose horizontal distance to the given chunk is at
+     * most {@code range} into {@code out}, replacing its previous contents.
+     */
+    void collectNearChunk(World world, int chunkX, int chunkZ, double range, Nearby out) {
+        out.reset();
+        out.range = range;
+        Map<Long, Cell> cells = worlds.get(world.getUID());
+        if (cells == null || cells.isEmpty()) return;
+
+        double minX = chunkX << 4, minZ = chunkZ << 4;
+        double maxX = minX + 16,   maxZ = minZ + 16;
+        int minCellX = (int) Math.floor((minX - range) / 16), maxCellX = (int) Math.floor((maxX + range) / 16);
+        int minCellZ = (int) Math.floor((minZ - range) / 16), maxCellZ = (int) Math.floor((maxZ + range) / 16);
+        double rangeSq = range * range;
+
+        for (int cx = minCellX; cx <= maxCellX; cx++) {
+            for (int cz = minCellZ; cz <= maxCellZ; cz++) {
+                Cell cell = cells.get(BlockKey.chunk(cx, cz));
+                if (cell == null || cell.stamp != stamp) continue;
+                for (int i = 0; i < cell.size; i++) {
+                    double x = cell.coords[i * 3], y = cell.coords[i * 3 + 1], z = cell.coords[i * 3 + 2];
+                    double dx = x < minX ? minX - x : (x > maxX ? x - maxX : 0);
+                    double dz = z < minZ ? minZ - z : (z > maxZ ? z - maxZ : 0);
+                    if (dx * dx + dz * dz <= rangeSq) out.add(cell.players[i], x, y, z);
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops a player from a world's cells before the next rebuild, e.g. when
+     * they left that world or the server.
+     */
+    void remove(Player player, World world) {
+        Map<Long, Cell> cells = worlds.get(world.getUID());
+        if (cells == null) return;
+        for (Cell cell : cells.values()) {
+            for (int i = 0; i < cell.size; i++) {
+                if (cell.players[i] != player) continue;
+                int last = --cell.size;
+                cell.players[i] = cell.players[last];
+                System.arraycopy(cell.coords, last * 3, cell.coords, i * 3, 3);
+                cell.players[last] = null;
+                i--;
+            }
+        }
+    }
+
+    void evictWorld(World world) {
+        worlds.remove(world.getUID());
+    }
+
+    void clear() {
+        worlds.clear();
+    }
+}
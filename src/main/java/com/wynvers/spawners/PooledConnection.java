@@ -0,0 +1,95 @@
+package com.wynvers.spawners;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A pooled JDBC connection with a cache of its prepared statements.  Used by
+ * one thread at a time; statements returned by {@link #prepare} belong to the
+ * cache and must not be closed by the caller.  {@link #validate} replaces the
+ * connection when it has died, e.g. after MySQL dropped it for being idle
+ * longer than {@code wait_timeout}.
+ */
+final class PooledConnection {
+
+    private static final long VALIDATE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int VALIDATE_TIMEOUT_SECONDS = 5;
+
+    private final ConnectionPool.Opener opener;
+    private final boolean reader;
+    private final Map<String, PreparedStatement> statements = new HashMap<>();
+    private Connection connection;
+    private long validatedNanos;
+
+    PooledConnection(ConnectionPool.Opener opener, boolean reader) throws SQLException {
+        this.opener = opener;
+        this.reader = reader;
+        this.connection = opener.open(reader);
+        this.validatedNanos = System.nanoTime();
+    }
+
+    Connection raw() {
+        return connection;
+    }
+
+    /**
+     * Reopens the connection, with its statement cache emptied, if it is
+     * closed or, checked at most once a second, no longer answers the server.
+     */
+    void validate() throws SQLException {
+        long now = System.nanoTime();
+        if (connection.isClosed()
+                || (now - validatedNanos >= VALIDATE_INTERVAL_NANOS && !connection.isValid(VALIDATE_TIMEOUT_SECONDS))) {
+            reopen();
+        }
+        validatedNanos = now;
+    }
+
+    private void reopen() throws SQLException {
+        closeStatements();
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // the connection is already dead
+        }
+        connection = opener.open(reader);
+    }
+
+    /** Returns the cached statement for {@code sql}, preparing it on first use. */
+    PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement ps = statements.get(sql);
+        if (ps == null || ps.isClosed()) {
+            ps = connection.prepareStatement(sql);
+            statements.put(sql, ps);
+        } else {
+            ps.clearParameters();
+        }
+        return ps;
+    }
+
+    void close(Logger logger) {
+        closeStatements();
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Failed to close database connection", e);
+        }
+    }
+
+    private void closeStatements() {
+        for (PreparedStatement ps : statements.values()) {
+            try {
+                ps.close();
+            } catch (SQLException ignored) {
+                // closing the connection releases it anyway
+            }
+        }
+        statements.clear();
+    }
+}
@@ -0,0 +1,156 @@
+package com.wynvers.spawners;
+
+import org.bukkit.Location;
+import org.bukkit.Particle;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Spark particles of active spawners, sent only to the players close enough
+ * to see them.
+ *
+ * <p>Spawners {@link #add} their position while they are evaluated; at the end
+ * of the tick every chunk that had an active spawner is sent as one burst.  A
+ * burst holds at most {@code max-per-chunk} particles however many spawners
+ * the chunk contains, and goes to each player within the render distance
+ * rather than to the whole view distance.  Every player additionally has a
+ * particle budget per second, so a player standing in a spawner farm is not
+ * flooded.  Bursts and their arrays are reused between ticks.  Main thread
+ * only.</p>
+ */
+final class SparkEmitter {
+
+    private static final int PER_SPAWNER = 5;
+    private static final double SPREAD = 0.3;
+
+    /** Active spawner positions in one chunk during the current tick. */
+    private static final class Burst {
+        SpawnerRegistry.ChunkBucket bucket;
+        double[] coords = new double[12]; // x, y, z per spawner
+        int size;
+
+        void add(double x, double y, double z) {
+            if (size * 3 == coords.length) coords = Arrays.copyOf(coords, coords.length * 2);
+            coords[size * 3]     = x;
+            coords[size * 3 + 1] = y;
+            coords[size * 3 + 2] = z;
+            size++;
+        }
+    }
+
+    /** Particles a player was sent during one second. */
+    private static final class Budget {
+        long second;
+        int used;
+    }
+
+    private final Map<SpawnerRegistry.ChunkBucket, Burst> byChunk = new IdentityHashMap<>();
+    private final List<Burst> pending = new ArrayList<>();
+    private final List<Burst> free = new ArrayList<>();
+    private final Map<UUID, Budget> budgets = new HashMap<>();
+    private int renderDistance = 32;
+    private int maxPerChunk    = 20;
+    private int maxPerPlayer   = 100;
+    private long sweptSecond   = -1;
+
+    /**
+     * @param renderDistance blocks from a spawner within which players see its sparks
+     * @param maxPerChunk    most particles in one chunk's burst
+     * @param maxPerPlayer   most spark particles sent to one player per second; 0 = no limit
+     */
+    void setSettings(int renderDistance, int maxPerChunk, int maxPerPlayer) {
+        this.renderDistance = Math.max(1, renderDistance);
+        this.maxPerChunk    = Math.max(1, maxPerChunk);
+        this.maxPerPlayer   = Math.max(0, maxPerPlayer);
+    }
+
+    int getRenderDistance() {
+        return renderDistance;
+    }
+
+    /** Records the spawner at {@code loc} as active this tick. */
+    void add(SpawnerRegistry.ChunkBucket bucket, Location loc) {
+        Burst burst = byChunk.get(bucket);
+        if (burst == null) {
+            burst = free.isEmpty() ? new Burst() : free.remove(free.size() - 1);
+            burst.bucket = bucket;
+            byChunk.put(bucket, burst);
+            pending.add(burst);
+        }
+        burst.add(loc.getX() + 0.5, loc.getY() + 0.5, loc.getZ() + 0.5);
+    }
+
+    /**
+     * Sends this tick's bursts.
+     *
+     * @param nearby players near a chunk, collected with at least the render distance
+     */
+    void flush(long tick, Function<SpawnerRegistry.ChunkBucket, PlayerIndex.Nearby> nearby) {
+        if (pending.isEmpty()) return;
+        long second = tick / 20;
+        if (second != sweptSecond) {
+            budgets.values().removeIf(b -> b.second != second);
+            sweptSecond = second;
+        }
+        double rangeSq = (double) renderDistance * renderDistance;
+        for (Burst burst : pending) {
+            if (burst.bucket.loaded) send(burst, nearby.apply(burst.bucket), second, rangeSq);
+            byChunk.remove(burst.bucket);
+            burst.bucket = null;
+            burst.size   = 0;
+            free.add(burst);
+        }
+        pending.clear();
+    }
+
+    private void send(Burst burst, PlayerIndex.Nearby players, long second, double rangeSq) {
+        if (players.size == 0) return;
+        // Many spawners share the chunk's budget: sample evenly and thin out the particles per point.
+        int points   = Math.min(burst.size, maxPerChunk);
+        int perPoint = Math.max(1, Math.min(PER_SPAWNER, maxPerChunk / points));
+        for (int i = 0; i < players.size; i++) {
+            Player player = players.players[i];
+            double px = players.coords[i * 3], py = players.coords[i * 3 + 1], pz = players.coords[i * 3 + 2];
+            Budget budget = null;
+            if (maxPerPlayer > 0) {
+                budget = budgets.get(player.getUniqueId());
+                if (budget == null) {
+                    budget = new Budget();
+                    budgets.put(player.getUniqueId(), budget);
+                }
+                if (budget.second != second) {
+                    budget.second = second;
+                    budget.used   = 0;
+                }
+            }
+            for (int p = 0; p < points; p++) {
+                if (budget != null && budget.used + perPoint > maxPerPlayer) break;
+                int s = (int) ((long) p * burst.size / points) * 3;
+                double x = burst.coords[s], y = burst.coords[s + 1], z = burst.coords[s + 2];
+                double dx = x - px, dy = y - py, dz = z - pz;
+                if (dx * dx + dy * dy + dz * dz > rangeSq) continue;
+                player.spawnParticle(Particle.ELECTRIC_SPARK, x, y, z, perPoint, SPREAD, SPREAD, SPREAD, 0);
+                if (budget != null) budget.used += perPoint;
+            }
+        }
+    }
+
+    void clear() {
+        for (Burst burst : pending) {
+            burst.bucket = null;
+            burst.size   = 0;
+            free.add(burst);
+        }
+        pending.clear();
+        byChunk.clear();
+        budgets.clear();
+    }
+}
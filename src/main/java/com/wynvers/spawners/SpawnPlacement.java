@@ -0,0 +1,60 @@
+package com.wynvers.spawners;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.util.Random;
+
+/**
+ * Random spawn positions and scales for queued mobs.  Positions are written
+ * into one scratch {@link Location} that is only valid until the next call,
+ * so placing a mob does not allocate.  Main thread only.
+ */
+final class SpawnPlacement {
+
+    private final Random random;
+    private final Location scratch = new Location(null, 0, 0, 0);
+    private Reference<World> scratchWorld = new WeakReference<>(null);
+
+    SpawnPlacement(Random random) {
+        this.random = random;
+    }
+
+    /** A random spawn position within {@code minRadius..maxRadius} blocks of the center block. */
+    Location around(Location center, int minRadius, int maxRadius) {
+        if (maxRadius <= 0) return offset(center, 0.5, 0.5);
+        int radius = (maxRadius > minRadius)
+                ? minRadius + random.nextInt(maxRadius - minRadius + 1)
+                : minRadius;
+        double angle    = random.nextDouble() * 2 * Math.PI;
+        double distance = Math.sqrt(random.nextDouble()) * radius;
+        return offset(center, Math.cos(angle) * distance + 0.5, Math.sin(angle) * distance + 0.5);
+    }
+
+    /** Whether mobs spawned with this scale range are resized at all. */
+    static boolean scales(double minScale, double maxScale) {
+        return Math.abs(minScale - 1.0) >= 1e-9 || Math.abs(maxScale - 1.0) >= 1e-9;
+    }
+
+    /** A random scale between {@code minScale} and {@code maxScale}. */
+    double scale(double minScale, double maxScale) {
+        return (maxScale > minScale)
+                ? minScale + random.nextDouble() * (maxScale - minScale)
+                : minScale;
+    }
+
+    private Location offset(Location base, double dx, double dz) {
+        World world = base.getWorld();
+        // Location#setWorld wraps the world in a new WeakReference; only call it when the world changes.
+        if (scratchWorld.get() != world) {
+            scratch.setWorld(world);
+            scratchWorld = new WeakReference<>(world);
+        }
+        scratch.setX(base.getX() + dx);
+        scratch.setY(base.getY());
+        scratch.setZ(base.getZ() + dz);
+        return scratch;
+    }
+}
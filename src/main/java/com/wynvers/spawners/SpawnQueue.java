@@ -0,0 +1,156 @@
+package com.wynvers.spawners;
+
+import java.util.ArrayDeque;
+import java.util.Locale;
+
+/**
+ * Bounded FIFO of pending spawner cycles.
+ *
+ * <p>What happens when the queue is full depends on the {@link OverflowPolicy}.
+ * Counters for dropped, coalesced and paused cycles are kept for
+ * {@code /spawner stats}.</p>
+ *
+ * <p>Finished, dropped and rejected requests go back to a small free list and
+ * are handed out again by {@link #obtain()}, so a steady spawn rate does not
+ * allocate.</p>
+ */
+final class SpawnQueue {
+
+    private static final int MAX_POOLED = 256;
+
+    enum OverflowPolicy {
+        /** Evict the oldest queued cycle to make room for the new one. */
+        DROP_OLDEST,
+        /** Fold the new cycle into a cycle its spawner already has queued; drop it if there is none. */
+        COALESCE,
+        /** Hold spawner countdowns at zero until there is room again. */
+        PAUSE;
+
+        static OverflowPolicy parse(String value) {
+            return valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private final ArrayDeque<SpawnRequest> queue = new ArrayDeque<>();
+    private final ArrayDeque<SpawnRequest> free = new ArrayDeque<>();
+    private int capacity = 2000;
+    private OverflowPolicy policy = OverflowPolicy.DROP_OLDEST;
+    private int queuedMobs;
+
+    private long dropped;
+    private long coalesced;
+    private long paused;
+
+    void setCapacity(int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    void setPolicy(OverflowPolicy policy) {
+        this.policy = policy;
+    }
+
+    OverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Whether a spawner that is about to fire should wait instead.  Only true
+     * under {@link OverflowPolicy#PAUSE} with a full queue; counts the pause.
+     */
+    boolean shouldPause() {
+        if (policy != OverflowPolicy.PAUSE || queue.size() < capacity) return false;
+        paused++;
+        return true;
+    }
+
+    /** A cleared request to fill in and {@link #offer}. */
+    SpawnRequest obtain() {
+        SpawnRequest request = free.poll();
+        return request != null ? request : new SpawnRequest();
+    }
+
+    /**
+     * Queues a cycle, applying the overflow policy.  The request belongs to
+     * the queue afterwards, even if it was not queued.
+     *
+     * @return {@code false} if the request was not queued (coalesced or dropped)
+     */
+    boolean offer(SpawnRequest request, long nowNanos) {
+        TickedSpawner source = request.source;
+        if (queue.size() >= capacity) {
+            SpawnRequest pending = source != null ? source.pendingRequest : null;
+            if (policy == OverflowPolicy.COALESCE && pending != null) {
+                // The spawner still has a cycle waiting; it spawns this cycle's mobs as well.
+                pending.remaining += request.remaining;
+                queuedMobs += request.remaining;
+                source.queuedMobs += request.remaining;
+                coalesced++;
+                recycle(request);
+                return false;
+            }
+            if (policy != OverflowPolicy.DROP_OLDEST) {
+                dropped++;
+                recycle(request);
+                return false;
+            }
+            discard(queue.poll());
+            dropped++;
+        }
+        request.enqueuedNanos = nowNanos;
+        if (source != null) {
+            source.pendingRequest = request;
+            source.queuedMobs += request.remaining;
+        }
+        queue.add(request);
+        queuedMobs += request.remaining;
+        return true;
+    }
+
+    SpawnRequest peek() {
+        return queue.peek();
+    }
+
+    /** Records that {@code count} mobs of the head request were spawned, removing the request when done. */
+    void consume(int count) {
+        SpawnRequest head = queue.peek();
+        if (head == null) return;
+        count = Math.min(count, head.remaining);
+        head.remaining -= count;
+        queuedMobs -= count;
+        if (head.source != null) head.source.queuedMobs -= count;
+        if (head.remaining <= 0) discard(queue.poll());
+    }
+
+    private void discard(SpawnRequest request) {
+        if (request == null) return;
+        queuedMobs -= request.remaining;
+        TickedSpawner source = request.source;
+        if (source != null) {
+            source.queuedMobs -= request.remaining;
+            if (source.pendingRequest == request) source.pendingRequest = null;
+        }
+        recycle(request);
+    }
+
+    private void recycle(SpawnRequest request) {
+        request.reset();
+        if (free.size() < MAX_POOLED) free.add(request);
+    }
+
+    void clear() {
+        while (!queue.isEmpty()) discard(queue.poll());
+    }
+
+    int size()           { return queue.size(); }
+    int capacity()       { return capacity; }
+    int queuedMobs()     { return queuedMobs; }
+    long droppedCount()  { return dropped; }
+    long coalescedCount(){ return coalesced; }
+    long pausedCount()   { return paused; }
+
+    /** Age of the oldest queued cycle, or 0 if the queue is empty. */
+    long oldestAgeNanos(long nowNanos) {
+        SpawnRequest head = queue.peek();
+        return head != null ? nowNanos - head.enqueuedNanos : 0;
+    }
+}
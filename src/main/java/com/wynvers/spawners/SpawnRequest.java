@@ -0,0 +1,45 @@
+package com.wynvers.spawners;
+
+import org.bukkit.Location;
+
+/**
+ * One spawner cycle waiting in the {@link SpawnQueue}.  A request covers every
+ * mob of the cycle; the drain spawns them one at a time (aggregated mobs in
+ * one go) and only drops the request once {@link #remaining} reaches zero.  Instances are pooled by the
+ * queue: get one from {@link SpawnQueue#obtain()} and never keep a reference
+ * after handing it to {@link SpawnQueue#offer}.
+ */
+final class SpawnRequest {
+
+    TickedSpawner source;
+    Location center;        // spawner block location, not modified
+    SpawnerData data;       // nullable
+    String mmType;          // nullable
+    int minRadius, maxRadius;
+    double minScale, maxScale;
+    int remaining;
+    long enqueuedNanos;
+
+    SpawnRequest set(TickedSpawner source, Location center, SpawnerData data, String mmType,
+                     int minRadius, int maxRadius, double minScale, double maxScale, int count) {
+        this.source    = source;
+        this.center    = center;
+        this.data      = data;
+        this.mmType    = mmType;
+        this.minRadius = minRadius;
+        this.maxRadius = maxRadius;
+        this.minScale  = minScale;
+        this.maxScale  = maxScale;
+        this.remaining = count;
+        return this;
+    }
+
+    /** Drops references so a pooled request does not keep a spawner or definition alive. */
+    void reset() {
+        source = null;
+        center = null;
+        data   = null;
+        mmType = null;
+        remaining = 0;
+    }
+}
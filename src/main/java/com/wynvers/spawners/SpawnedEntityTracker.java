@@ -0,0 +1,127 @@
+package com.wynvers.spawners;
+
+import org.bukkit.NamespacedKey;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.persistence.PersistentDataType;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Living mobs produced by each spawner, for the per-spawner {@code max-alive}
+ * limit.
+ *
+ * <p>Each tracked mob is tagged with the block key of its spawner, and
+ * {@link TickedSpawner#alive} is kept in step as mobs come and go.  Deaths and
+ * entity unloads arrive as events; Spigot has no despawn event, so
+ * {@link #sweep()} drops mobs that are no longer valid.  When a chunk's
+ * entities load again, tagged mobs are re-attached to their spawner, so the
+ * counts also survive restarts.  An aggregated entity counts as every mob it
+ * carries.  Main thread only.</p>
+ */
+final class SpawnedEntityTracker {
+
+    private static final class Tracked {
+        final Entity entity;
+        final TickedSpawner spawner;
+        int weight; // mobs this entity stands for
+
+        Tracked(Entity entity, TickedSpawner spawner, int weight) {
+            this.entity  = entity;
+            this.spawner = spawner;
+            this.weight  = weight;
+        }
+    }
+
+    private final NamespacedKey spawnerKey;
+    private final MobAggregator aggregator;
+    private final Map<UUID, Tracked> tracked = new HashMap<>();
+
+    SpawnedEntityTracker(NamespacedKey spawnerKey, MobAggregator aggregator) {
+        this.spawnerKey = spawnerKey;
+        this.aggregator = aggregator;
+    }
+
+    /** Starts tracking a mob just spawned by {@code spawner} and tags it with the spawner's position. */
+    void trackSpawned(Entity entity, TickedSpawner spawner) {
+        entity.getPersistentDataContainer().set(spawnerKey, PersistentDataType.LONG, spawner.key);
+        track(entity, spawner);
+    }
+
+    /**
+     * Re-attaches a loaded entity to its spawner if it carries a spawner tag.
+     *
+     * @param registry where to look the spawner up
+     * @return the spawner, or {@code null} if the entity is untagged or its spawner is not registered
+     */
+    TickedSpawner reattach(Entity entity, SpawnerRegistry registry) {
+        Long key = entity.getPersistentDataContainer().get(spawnerKey, PersistentDataType.LONG);
+        if (key == null) return null;
+        Tracked existing = tracked.get(entity.getUniqueId());
+        if (existing != null) return existing.spawner;
+        World world = entity.getWorld();
+        SpawnerRegistry.ChunkBucket bucket = registry.bucket(world, BlockKey.x(key) >> 4, BlockKey.z(key) >> 4);
+        TickedSpawner spawner = bucket != null ? bucket.spawners.get(key) : null;
+        if (spawner != null) track(entity, spawner);
+        return spawner;
+    }
+
+    /**
+     * Hands the spawner tag of a dead aggregated mob over to the entity that
+     * replaces it, and tracks the replacement.
+     *
+     * @return the spawner, as for {@link #reattach}
+     */
+    TickedSpawner inherit(Entity dead, Entity replacement, SpawnerRegistry registry) {
+        Long key = dead.getPersistentDataContainer().get(spawnerKey, PersistentDataType.LONG);
+        if (key == null) return null;
+        replacement.getPersistentDataContainer().set(spawnerKey, PersistentDataType.LONG, key);
+        return reattach(replacement, registry);
+    }
+
+    private void track(Entity entity, TickedSpawner spawner) {
+        int weight = Math.max(1, aggregator.count(entity));
+        Tracked previous = tracked.put(entity.getUniqueId(), new Tracked(entity, spawner, weight));
+        if (previous != null) previous.spawner.alive -= previous.weight;
+        spawner.alive += weight;
+    }
+
+    /** Re-reads the count of a tracked aggregated entity after mobs were folded into it. */
+    void resized(Entity entity) {
+        Tracked entry = tracked.get(entity.getUniqueId());
+        if (entry == null) return;
+        int weight = Math.max(1, aggregator.count(entity));
+        entry.spawner.alive += weight - entry.weight;
+        entry.weight = weight;
+    }
+
+    /** Stops tracking a mob, e.g. because it died or its chunk unloaded. */
+    void untrack(UUID entityId) {
+        Tracked entry = tracked.remove(entityId);
+        if (entry != null) entry.spawner.alive -= entry.weight;
+    }
+
+    /** Drops mobs that were removed without an event (despawned, killed by a plugin) or whose spawner is gone. */
+    void sweep() {
+        Iterator<Tracked> it = tracked.values().iterator();
+        while (it.hasNext()) {
+            Tracked entry = it.next();
+            if (entry.spawner.removed || !entry.entity.isValid()) {
+                entry.spawner.alive -= entry.weight;
+                it.remove();
+            }
+        }
+    }
+
+    int size() {
+        return tracked.size();
+    }
+
+    void clear() {
+        for (Tracked entry : tracked.values()) entry.spawner.alive = 0;
+        tracked.clear();
+    }
+}
@@ -18,6 +18,7 @@ public class SpawnerConfig {
 
     private final Map<String, SpawnerData> spawners = new HashMap<>();
     private final Logger logger;
+    private int generation; // bumped on every load, so cached SpawnerData references can be re-resolved
 
     public SpawnerConfig(Logger logger) {
         this.logger = logger;
@@ -25,6 +26,7 @@ public class SpawnerConfig {
 
     public void loadSpawners(FileConfiguration config) {
         spawners.clear();
+        generation++;
 
         ConfigurationSection spawnersSection = config.getConfigurationSection("spawners");
         if (spawnersSection == null) {
@@ -80,21 +82,36 @@ public class SpawnerConfig {
         int maxAmount           = section.getInt("max-amount", 0);
         double minScale         = section.getDouble("min-scale", 1.0);
         double maxScale         = section.getDouble("max-scale", 1.0);
+        int maxAlive            = section.getInt("max-alive", 0);
+        boolean aggregate       = section.getBoolean("aggregate", false);
+        boolean virtual         = section.getBoolean("virtual", false);
+        if (virtual && mythicMobType != null) {
+            logger.warning("Spawner '" + id + "': virtual mode only supports vanilla entity types; spawning normally.");
+            virtual = false;
+        }
 
         return new SpawnerData(id, material, displayName, lore, entityType, mythicMobType,
                 delay, requiredPlayerRange,
                 minRadius, maxRadius, minAmount, maxAmount,
-                minScale, maxScale);
+                minScale, maxScale, maxAlive, aggregate, virtual);
     }
 
     public void saveField(FileConfiguration config, String spawnerId, String field, int value) {
-        config.set("spawners." + spawnerId + "." + field, value);
+        config.set(fieldPath(spawnerId, field), value);
     }
 
     public void saveDoubleField(FileConfiguration config, String spawnerId, String field, double value) {
-        config.set("spawners." + spawnerId + "." + field, value);
+        config.set(fieldPath(spawnerId, field), value);
+    }
+
+    /** Config path of one setting of a spawner definition. */
+    static String fieldPath(String spawnerId, String field) {
+        return "spawners." + spawnerId + "." + field;
     }
 
+    /** Changes every time the definitions are reloaded and all {@link SpawnerData} instances replaced. */
+    int getGeneration() { return generation; }
+
     public SpawnerData getSpawner(String id) { return id != null ? spawners.get(id.toLowerCase(Locale.ROOT)) : null; }
 
     public Map<String, SpawnerData> getAllSpawners() {
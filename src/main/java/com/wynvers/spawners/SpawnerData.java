@@ -3,7 +3,14 @@ package com.wynvers.spawners;
 import org.bukkit.entity.EntityType;
 import org.bukkit.Material;
 import java.util.List;
+import java.util.Objects;
 
+/**
+ * One spawner definition from config.yml.  Placed spawners share the live
+ * instance, so changes made through the setters apply to them on their next
+ * cycle.  {@link #getVersion()} identifies the current settings and is stored
+ * on spawner items and blocks to recognise stale copies.
+ */
 public class SpawnerData {
 
     private final String id;
@@ -20,12 +27,17 @@ public class SpawnerData {
     private int maxAmount;
     private double minScale;
     private double maxScale;
+    private int maxAlive;
+    private boolean aggregate;
+    private boolean virtual;
+    private int version;
+    private boolean versionStale = true;
 
     public SpawnerData(String id, Material material, String displayName, List<String> lore,
                        EntityType entityType, String mythicMobType, int delay,
                        int requiredPlayerRange,
                        int minRadius, int maxRadius, int minAmount, int maxAmount,
-                       double minScale, double maxScale) {
+                       double minScale, double maxScale, int maxAlive, boolean aggregate, boolean virtual) {
         this.id = id;
         this.material = material;
         this.displayName = displayName;
@@ -40,6 +52,9 @@ public class SpawnerData {
         this.maxAmount = maxAmount;
         this.minScale = minScale;
         this.maxScale = maxScale;
+        this.maxAlive = maxAlive;
+        this.aggregate = aggregate;
+        this.virtual = virtual;
     }
 
     public String getId() { return id; }
@@ -51,26 +66,51 @@ public class SpawnerData {
     public String getMythicMobType() { return mythicMobType; }
 
     public int getDelay() { return delay; }
-    public void setDelay(int delay) { this.delay = delay; }
+    public void setDelay(int delay) { this.delay = delay; versionStale = true; }
 
     public int getRequiredPlayerRange() { return requiredPlayerRange; }
-    public void setRequiredPlayerRange(int requiredPlayerRange) { this.requiredPlayerRange = requiredPlayerRange; }
+    public void setRequiredPlayerRange(int requiredPlayerRange) { this.requiredPlayerRange = requiredPlayerRange; versionStale = true; }
 
     public int getMinRadius() { return minRadius; }
-    public void setMinRadius(int minRadius) { this.minRadius = minRadius; }
+    public void setMinRadius(int minRadius) { this.minRadius = minRadius; versionStale = true; }
 
     public int getMaxRadius() { return maxRadius; }
-    public void setMaxRadius(int maxRadius) { this.maxRadius = maxRadius; }
+    public void setMaxRadius(int maxRadius) { this.maxRadius = maxRadius; versionStale = true; }
 
     public int getMinAmount() { return minAmount; }
-    public void setMinAmount(int minAmount) { this.minAmount = minAmount; }
+    public void setMinAmount(int minAmount) { this.minAmount = minAmount; versionStale = true; }
 
     public int getMaxAmount() { return maxAmount; }
-    public void setMaxAmount(int maxAmount) { this.maxAmount = maxAmount; }
+    public void setMaxAmount(int maxAmount) { this.maxAmount = maxAmount; versionStale = true; }
 
     public double getMinScale() { return minScale; }
-    public void setMinScale(double minScale) { this.minScale = minScale; }
+    public void setMinScale(double minScale) { this.minScale = minScale; versionStale = true; }
 
     public double getMaxScale() { return maxScale; }
-    public void setMaxScale(double maxScale) { this.maxScale = maxScale; }
+    public void setMaxScale(double maxScale) { this.maxScale = maxScale; versionStale = true; }
+
+    /** Most living mobs from one placed spawner at a time; 0 = no limit.  Not stored on blocks. */
+    public int getMaxAlive() { return maxAlive; }
+    public void setMaxAlive(int maxAlive) { this.maxAlive = maxAlive; }
+
+    /** Whether mobs fold into one nearby entity carrying a count instead of spawning separately.  Not stored on blocks. */
+    public boolean isAggregate() { return aggregate; }
+    public void setAggregate(boolean aggregate) { this.aggregate = aggregate; }
+
+    /** Whether cycles roll the mob's loot into the spawner's storage instead of spawning it.  Not stored on blocks. */
+    public boolean isVirtual() { return virtual; }
+    public void setVirtual(boolean virtual) { this.virtual = virtual; }
+
+    /**
+     * Fingerprint of the spawning settings.  Survives restarts (it is derived
+     * from the values, not counted) and changes whenever a setter changes one.
+     */
+    public int getVersion() {
+        if (versionStale) {
+            version = Objects.hash(entityType, mythicMobType, delay, requiredPlayerRange,
+                    minRadius, maxRadius, minAmount, maxAmount, minScale, maxScale);
+            versionStale = false;
+        }
+        return version;
+    }
 }
@@ -3,204 +3,683 @@ package com.wynvers.spawners;
 import org.bukkit.Location;
 
 import java.io.File;
+import java.io.IOException;
 import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
- * SQLite database manager for tracking player-owned spawners.
+ * Database manager for tracking player-owned spawners.
  * Stores coordinates and all internal settings for each placed spawner.
+ *
+ * <p>The SQL itself lives in a {@link SpawnerStorage} backend (SQLite by
+ * default, or a shared MySQL/MariaDB server).  Writes are queued for a single
+ * writer thread and applied in batched transactions on the pool's writer
+ * connection.  Reads return {@link CompletableFuture}s and run in parallel on
+ * reader connections.  Spawner owners are kept in an {@link OwnershipIndex} so
+ * event handlers can check ownership without waiting on the database.</p>
+ *
+ * <p>Placements and removals are also appended to a {@link SpawnerJournal}
+ * before they are queued, so a crash before the writer commits them, or a
+ * failed commit, does not lose them: leftover entries are replayed into the
+ * database on the next startup, or while running once writes succeed again.</p>
  */
 public class SpawnerDatabase {
 
+    /** Returned by {@link #lookupOwner} while the owners of a spawner's chunk are being read. */
+    static final UUID OWNER_LOADING = new UUID(0L, 1L);
+
+    private static final long PINNED_RETRY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
     private final Logger logger;
-    private Connection connection;
+    private final SpawnerStorage storage;
+    private ConnectionPool pool; // null if the database could not be opened
+
+    private final ExecutorService writeExecutor;
+    private final ExecutorService readExecutor;
+    private final ConcurrentLinkedQueue<PendingWrite> pendingWrites = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final AtomicLong writeSequence = new AtomicLong();
+    private final Object commitLock = new Object();
+    private long committedSequence; // guarded by commitLock
+    private volatile boolean closed;
+    private final OwnershipIndex owners = new OwnershipIndex();
+
+    private final Object journalLock = new Object();
+    private SpawnerJournal journal;          // null if disabled or it could not be opened; guarded by journalLock
+    private volatile boolean journalPinned; // a write was lost; keep the journal until it is replayed
+    private long pinnedRetryNanos = System.nanoTime() - PINNED_RETRY_NANOS; // last pinned replay; writer thread only
 
     public SpawnerDatabase(File dataFolder, Logger logger) {
+        this(dataFolder, logger, 2);
+    }
+
+    public SpawnerDatabase(File dataFolder, Logger logger, int readerConnections) {
+        this(new SqliteSpawnerStorage(dataFolder, logger), new File(dataFolder, "spawners.journal"),
+                logger, readerConnections);
+    }
+
+    /**
+     * @param journalFile write-behind journal, or {@code null} to run without one
+     */
+    SpawnerDatabase(SpawnerStorage storage, File journalFile, Logger logger, int readerConnections) {
         this.logger = logger;
+        this.storage = storage;
+        int readers = Math.max(1, readerConnections);
+        this.writeExecutor = Executors.newSingleThreadExecutor(daemonThreads("WSpawners-Database-Writer"));
+        this.readExecutor  = Executors.newFixedThreadPool(readers, daemonThreads("WSpawners-Database-Reader"));
         try {
-            if (!dataFolder.exists()) dataFolder.mkdirs();
-            File dbFile = new File(dataFolder, "spawners.db");
-            connection = DriverManager.getConnection("jdbc:sqlite:" + dbFile.getAbsolutePath());
-            createTable();
-            logger.info("SpawnerDatabase initialized (SQLite).");
+            pool = storage.openPool(readers);
+            logger.info("SpawnerDatabase initialized (" + storage.describe() + ", "
+                    + readers + " reader connection(s)).");
         } catch (SQLException e) {
-            logger.log(Level.SEVERE, "Failed to initialize SpawnerDatabase", e);
+            logger.log(Level.SEVERE, "Failed to initialize SpawnerDatabase (" + storage.describe() + ")", e);
         }
+        if (journalFile != null) openJournal(journalFile);
     }
 
-    private void createTable() throws SQLException {
-        try (Statement stmt = connection.createStatement()) {
-            stmt.executeUpdate(
-                "CREATE TABLE IF NOT EXISTS player_spawners ("
-                + " id INTEGER PRIMARY KEY AUTOINCREMENT,"
-                + " player_uuid TEXT NOT NULL,"
-                + " player_name TEXT NOT NULL,"
-                + " spawner_id TEXT NOT NULL,"
-                + " world TEXT NOT NULL,"
-                + " x INTEGER NOT NULL,"
-                + " y INTEGER NOT NULL,"
-                + " z INTEGER NOT NULL,"
-                + " entity_type TEXT,"
-                + " mythic_mob_type TEXT,"
-                + " delay INTEGER,"
-                + " required_player_range INTEGER,"
-                + " min_radius INTEGER,"
-                + " max_radius INTEGER,"
-                + " min_amount INTEGER,"
-                + " max_amount INTEGER,"
-                + " placed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,"
-                + " UNIQUE(world, x, y, z)"
-                + ")"
-            );
+    /**
+     * Opens the journal and replays whatever the previous run left in it.  If
+     * the replay cannot be committed the entries stay for the next startup.
+     */
+    private void openJournal(File file) {
+        try {
+            journal = SpawnerJournal.open(file, logger);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to open spawner journal " + file.getName()
+                    + "; placements are written to the database only", e);
+            return;
+        }
+        List<SpawnerJournal.Entry> entries = journal.readEntries();
+        if (entries.isEmpty()) return;
+        if (pool == null) {
+            journalPinned = true;
+            logger.warning(entries.size() + " journaled spawner write(s) kept for the next startup.");
+            return;
+        }
+        try {
+            replay(entries);
+            journal.reset();
+            logger.info("Replayed " + entries.size() + " journaled spawner write(s).");
+        } catch (SQLException e) {
+            journalPinned = true;
+            logger.log(Level.SEVERE, "Failed to replay " + entries.size()
+                    + " journaled spawner write(s); keeping them for the next startup", e);
         }
     }
 
+    /** Applies journal entries in order, in one transaction on the writer connection. */
+    private void replay(List<SpawnerJournal.Entry> entries) throws SQLException {
+        PooledConnection conn = pool.writer();
+        inTransaction(conn, () -> {
+            for (SpawnerJournal.Entry entry : entries) {
+                if (entry.placed != null) storage.upsertSpawners(conn, List.of(entry.placed));
+                else if (entry.stackSize > 0) storage.updateStackSizes(conn, Map.of(entry.removed, entry.stackSize));
+                else storage.deleteSpawners(conn, List.of(entry.removed));
+            }
+        });
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
     /**
-     * Record a spawner placement for a player.
+     * Record a spawner placement for a player.  Queued for the writer thread;
+     * the owner is visible to {@link #getOwner} immediately.  Replaces any
+     * stale record left at the same position.
      */
     public void addSpawner(UUID playerUuid, String playerName, String spawnerId,
                            Location loc, SpawnerData data) {
-        String sql = "INSERT INTO player_spawners "
-                + "(player_uuid, player_name, spawner_id, world, x, y, z, "
-                + "entity_type, mythic_mob_type, delay, required_player_range, "
-                + "min_radius, max_radius, min_amount, max_amount) "
-                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, playerUuid.toString());
-            ps.setString(2, playerName);
-            ps.setString(3, spawnerId);
-            ps.setString(4, loc.getWorld().getName());
-            ps.setInt(5, loc.getBlockX());
-            ps.setInt(6, loc.getBlockY());
-            ps.setInt(7, loc.getBlockZ());
-            ps.setString(8, data.getEntityType().name());
-            ps.setString(9, data.isMythicMob() ? data.getMythicMobType() : null);
-            ps.setInt(10, data.getDelay());
-            ps.setInt(11, data.getRequiredPlayerRange());
-            ps.setInt(12, data.getMinRadius());
-            ps.setInt(13, data.getMaxRadius());
-            ps.setInt(14, data.getMinAmount());
-            ps.setInt(15, data.getMaxAmount());
-            ps.executeUpdate();
-        } catch (SQLException e) {
-            logger.log(Level.SEVERE, "Failed to add spawner to database", e);
+        // Snapshot the definition now; the editor may change it before the write runs.
+        SpawnerRecord record = new SpawnerRecord(playerUuid.toString(), playerName, spawnerId,
+                loc.getWorld().getName(), loc.getBlockX(), loc.getBlockY(), loc.getBlockZ(),
+                data.getEntityType().name(), data.isMythicMob() ? data.getMythicMobType() : null,
+                data.getDelay(), data.getRequiredPlayerRange(),
+                data.getMinRadius(), data.getMaxRadius(), data.getMinAmount(), data.getMaxAmount());
+        owners.put(record.getWorld(), record.getX(), record.getY(), record.getZ(), playerUuid);
+        synchronized (journalLock) {
+            if (journal != null) journal.appendPlacement(record);
+            pendingWrites.add(new PendingWrite(writeSequence.incrementAndGet(), record, null, 0, null));
         }
+        scheduleFlush();
     }
 
     /**
-     * Remove a spawner record by its location.
+     * Remove a spawner record by its location.  Queued for the writer thread.
      */
     public void removeSpawner(Location loc) {
-        String sql = "DELETE FROM player_spawners WHERE world = ? AND x = ? AND y = ? AND z = ?";
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, loc.getWorld().getName());
-            ps.setInt(2, loc.getBlockX());
-            ps.setInt(3, loc.getBlockY());
-            ps.setInt(4, loc.getBlockZ());
-            ps.executeUpdate();
-        } catch (SQLException e) {
-            logger.log(Level.SEVERE, "Failed to remove spawner from database", e);
+        SpawnerStorage.Pos pos = new SpawnerStorage.Pos(loc.getWorld().getName(),
+                loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
+        owners.put(pos.world, pos.x, pos.y, pos.z, OwnershipIndex.NO_OWNER);
+        synchronized (journalLock) {
+            if (journal != null) journal.appendRemoval(pos);
+            pendingWrites.add(new PendingWrite(writeSequence.incrementAndGet(), null, pos, 0, null));
+        }
+        scheduleFlush();
+    }
+
+    /**
+     * Record the stack size of a placed spawner after spawners were merged
+     * into it or taken off it.  Queued for the writer thread.
+     */
+    public void setStackSize(Location loc, int stackSize) {
+        SpawnerStorage.Pos pos = new SpawnerStorage.Pos(loc.getWorld().getName(),
+                loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
+        int size = Math.max(1, stackSize);
+        synchronized (journalLock) {
+            if (journal != null) journal.appendStackSize(pos, size);
+            pendingWrites.add(new PendingWrite(writeSequence.incrementAndGet(), null, pos, size, null));
         }
+        scheduleFlush();
     }
 
     /**
-     * Get the owner UUID of a spawner at the given location, or null if not found.
+     * Persist the remaining countdown of each given spawner.  Queued for the
+     * writer thread like any other write, so it lands in the next batch.
+     */
+    public void saveCountdowns(List<TickState> states) {
+        if (states.isEmpty()) return;
+        pendingWrites.add(new PendingWrite(writeSequence.incrementAndGet(), null, null, 0, states));
+        scheduleFlush();
+    }
+
+    /**
+     * Get the owner UUID of a spawner at the given location, or null if not
+     * found or not known yet.  Answered from the {@link OwnershipIndex} and
+     * never waits for the database; see {@link #lookupOwner}.
      */
     public UUID getOwner(Location loc) {
-        String sql = "SELECT player_uuid FROM player_spawners WHERE world = ? AND x = ? AND y = ? AND z = ?";
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, loc.getWorld().getName());
-            ps.setInt(2, loc.getBlockX());
-            ps.setInt(3, loc.getBlockY());
-            ps.setInt(4, loc.getBlockZ());
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) return UUID.fromString(rs.getString("player_uuid"));
-            }
-        } catch (SQLException e) {
-            logger.log(Level.SEVERE, "Failed to query spawner owner", e);
+        UUID owner = lookupOwner(loc);
+        return owner == OWNER_LOADING ? null : owner;
+    }
+
+    /**
+     * Get the owner UUID of a spawner at the given location from memory:
+     * {@code null} if nobody owns it, or {@link #OWNER_LOADING} if the owners
+     * of its chunk are still being read.  A miss queues that read instead of
+     * waiting for it, so this is safe on the main thread.
+     */
+    UUID lookupOwner(Location loc) {
+        String world = loc.getWorld().getName();
+        int x = loc.getBlockX(), y = loc.getBlockY(), z = loc.getBlockZ();
+        UUID owner = owners.get(world, x, y, z);
+        if (owner == null) {
+            loadChunkOwners(world, x >> 4, z >> 4);
+            return OWNER_LOADING;
         }
-        return null;
+        return owner == OwnershipIndex.NO_OWNER ? null : owner;
+    }
+
+    /**
+     * Load the owners of every spawner in a chunk into memory, on a database
+     * thread.  Does nothing if the chunk was already requested.
+     */
+    public void loadChunkOwners(String world, int chunkX, int chunkZ) {
+        OwnershipIndex.ChunkOwners chunk = owners.requestLoad(world, chunkX, chunkZ);
+        if (chunk == null) return;
+        read("load chunk owners", conn -> {
+            owners.merge(chunk, storage.getChunkOwners(conn, world, chunkX, chunkZ));
+            return null;
+        }).whenComplete((ignored, error) -> {
+            // Let the next lookup retry, rather than reporting the chunk as loading forever.
+            if (error != null) owners.loadFailed(chunk);
+        });
+    }
+
+    /** Drop a chunk's owners from memory, e.g. when the chunk unloads. */
+    public void evictChunkOwners(String world, int chunkX, int chunkZ) {
+        owners.evict(world, chunkX, chunkZ);
+    }
+
+    /** Drop every owner in a world from memory, e.g. when the world unloads. */
+    public void evictWorldOwners(String world) {
+        owners.evictWorld(world);
+    }
+
+    public long getOwnerCacheHits()     { return owners.hits(); }
+    public long getOwnerCacheMisses()   { return owners.misses(); }
+    public int getOwnerCacheChunkCount() { return owners.chunkCount(); }
+
+    /**
+     * Look up the owner of a spawner on a database thread.
+     */
+    public CompletableFuture<UUID> getOwnerAsync(Location loc) {
+        String world = loc.getWorld().getName();
+        int x = loc.getBlockX(), y = loc.getBlockY(), z = loc.getBlockZ();
+        return read("query spawner owner", conn -> storage.getOwner(conn, world, x, y, z));
     }
 
     /**
-     * Get all spawners owned by a player.
+     * Get all spawners owned by a player.  Blocks the calling thread until a
+     * database thread answers, which may include waiting for a pending write
+     * batch to commit.
+     *
+     * @deprecated blocks; use {@link #getSpawnersAsync}
      */
+    @Deprecated
     public List<SpawnerRecord> getSpawners(UUID playerUuid) {
-        List<SpawnerRecord> records = new ArrayList<>();
-        String sql = "SELECT * FROM player_spawners WHERE player_uuid = ?";
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, playerUuid.toString());
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    records.add(readRecord(rs));
-                }
-            }
+        return await(getSpawnersAsync(playerUuid), new ArrayList<>());
+    }
+
+    /**
+     * Get all spawners owned by a player, on a database thread.
+     */
+    public CompletableFuture<List<SpawnerRecord>> getSpawnersAsync(UUID playerUuid) {
+        return read("query player spawners", conn -> storage.getSpawners(conn, playerUuid));
+    }
+
+    /**
+     * Get all spawners owned by a player name (latest name stored).  Blocks
+     * the calling thread until a database thread answers, which may include
+     * waiting for a pending write batch to commit.
+     *
+     * @deprecated blocks; use {@link #getSpawnersByNameAsync}
+     */
+    @Deprecated
+    public List<SpawnerRecord> getSpawnersByName(String playerName) {
+        return await(getSpawnersByNameAsync(playerName), new ArrayList<>());
+    }
+
+    /**
+     * Get all spawners owned by a player name, on a database thread.
+     */
+    public CompletableFuture<List<SpawnerRecord>> getSpawnersByNameAsync(String playerName) {
+        return read("query spawners by player name", conn -> storage.getSpawnersByName(conn, playerName));
+    }
+
+    /**
+     * One page of a player's spawners in {@code (world, x, y, z)} order, on a
+     * database thread.  Pass the last record of the previous page as
+     * {@code after}, or {@code null} for the first page.
+     */
+    public CompletableFuture<List<SpawnerRecord>> getSpawnersPageAsync(UUID playerUuid, SpawnerRecord after, int limit) {
+        SpawnerStorage.Pos pos = after != null ? position(after) : null;
+        return read("query player spawner page", conn -> storage.getSpawnersPage(conn, playerUuid, pos, limit));
+    }
+
+    /**
+     * Same as {@link #getSpawnersPageAsync}, by player name (case-insensitive).
+     */
+    public CompletableFuture<List<SpawnerRecord>> getSpawnersPageByNameAsync(String playerName, SpawnerRecord after,
+                                                                            int limit) {
+        SpawnerStorage.Pos pos = after != null ? position(after) : null;
+        return read("query spawner page by player name",
+                conn -> storage.getSpawnersPageByName(conn, playerName, pos, limit));
+    }
+
+    /** Number of spawners owned by a player, on a database thread. */
+    public CompletableFuture<Integer> countSpawnersAsync(UUID playerUuid) {
+        return read("count player spawners", conn -> storage.countSpawners(conn, playerUuid));
+    }
+
+    /** Number of spawners owned by a player name (case-insensitive), on a database thread. */
+    public CompletableFuture<Integer> countSpawnersByNameAsync(String playerName) {
+        return read("count spawners by player name", conn -> storage.countSpawnersByName(conn, playerName));
+    }
+
+    private static SpawnerStorage.Pos position(SpawnerRecord record) {
+        return new SpawnerStorage.Pos(record.getWorld(), record.getX(), record.getY(), record.getZ());
+    }
+
+    /**
+     * Every managed spawner in one chunk, on a database thread.  A single
+     * indexed lookup on {@code (world, chunk_x, chunk_z)}.
+     */
+    public CompletableFuture<List<SpawnerRecord>> getSpawnersInChunkAsync(String world, int chunkX, int chunkZ) {
+        return getSpawnersInRegionAsync(world, chunkX, chunkZ, chunkX, chunkZ);
+    }
+
+    /**
+     * Every managed spawner in an inclusive rectangle of chunks, on a database
+     * thread.  One range scan on the chunk index.
+     */
+    public CompletableFuture<List<SpawnerRecord>> getSpawnersInRegionAsync(String world,
+                                                                          int minChunkX, int minChunkZ,
+                                                                          int maxChunkX, int maxChunkZ) {
+        int x0 = Math.min(minChunkX, maxChunkX), x1 = Math.max(minChunkX, maxChunkX);
+        int z0 = Math.min(minChunkZ, maxChunkZ), z1 = Math.max(minChunkZ, maxChunkZ);
+        return read("query spawners in region",
+                conn -> storage.getSpawnersInRegion(conn, world, x0, z0, x1, z1));
+    }
+
+    /**
+     * Streams the tick state of every placed spawner, ordered by world and
+     * chunk, in batches of {@code batchSize}.  Runs on its own read-only
+     * connection so the long scan does not hold a pooled reader.
+     */
+    public void streamTickStates(int batchSize, Consumer<List<TickState>> batchConsumer) {
+        try {
+            storage.streamTickStates(batchSize, batchConsumer);
         } catch (SQLException e) {
-            logger.log(Level.SEVERE, "Failed to query player spawners", e);
+            logger.log(Level.SEVERE, "Failed to stream spawner tick states", e);
+        }
+    }
+
+    // ---- Database threads ----
+
+    private void scheduleFlush() {
+        if (flushScheduled.compareAndSet(false, true) && !submit(writeExecutor, this::flushWrites)) {
+            flushScheduled.set(false);
         }
-        return records;
     }
 
     /**
-     * Get all spawners owned by a player name (latest name stored).
+     * Runs a query on a pooled reader connection.  The query waits until every
+     * write queued before it has been committed, so callers read their writes.
      */
-    public List<SpawnerRecord> getSpawnersByName(String playerName) {
-        List<SpawnerRecord> records = new ArrayList<>();
-        String sql = "SELECT * FROM player_spawners WHERE player_name = ? COLLATE NOCASE";
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, playerName);
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    records.add(readRecord(rs));
+    private <T> CompletableFuture<T> read(String description, SqlWork<T> work) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        long after = writeSequence.get();
+        boolean accepted = submit(readExecutor, () -> {
+            if (pool == null) {
+                future.completeExceptionally(new IllegalStateException("SpawnerDatabase is not connected"));
+                return;
+            }
+            PooledConnection conn = null;
+            try {
+                awaitCommitted(after);
+                conn = pool.acquireReader();
+                future.complete(work.run(conn));
+            } catch (SQLException | RuntimeException e) {
+                logger.log(Level.SEVERE, "Failed to " + description, e);
+                future.completeExceptionally(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.completeExceptionally(e);
+            } finally {
+                if (conn != null) pool.releaseReader(conn);
+            }
+        });
+        if (!accepted) future.completeExceptionally(new IllegalStateException("SpawnerDatabase is closed"));
+        return future;
+    }
+
+    private void awaitCommitted(long sequence) throws InterruptedException {
+        synchronized (commitLock) {
+            while (committedSequence < sequence && !closed) commitLock.wait(1000);
+        }
+    }
+
+    private static boolean submit(ExecutorService executor, Runnable task) {
+        try {
+            executor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Applies every queued write in one transaction on the writer connection.
+     * Runs on the writer thread only.  Adds and removes of the same position
+     * collapse to the last one, so each position is written once per batch;
+     * stack size changes are applied after them.
+     * If the batch fails it is retried write by write, so one bad row only
+     * loses itself.  Once nothing journaled is left uncommitted the journal
+     * is emptied.
+     */
+    private void flushWrites() {
+        flushScheduled.set(false);
+        if (pendingWrites.isEmpty()) return;
+        Map<SpawnerStorage.Pos, SpawnerRecord> latest = new LinkedHashMap<>(); // null value = remove
+        Map<SpawnerStorage.Pos, Integer> stackSizes = new LinkedHashMap<>();
+        List<TickState> countdowns = new ArrayList<>();
+        long lastSequence = 0;
+        PendingWrite write;
+        while ((write = pendingWrites.poll()) != null) {
+            lastSequence = write.sequence;
+            if (write.countdowns != null) {
+                countdowns.addAll(write.countdowns);
+            } else if (write.stackSize > 0) {
+                stackSizes.put(write.remove, write.stackSize);
+            } else if (write.record != null) {
+                SpawnerStorage.Pos pos = position(write.record);
+                latest.put(pos, write.record);
+                stackSizes.remove(pos); // the new row starts from the record's own stack size
+            } else {
+                latest.put(write.remove, null);
+                stackSizes.remove(write.remove);
+            }
+        }
+        List<SpawnerRecord> upserts = new ArrayList<>();
+        List<SpawnerStorage.Pos> deletes = new ArrayList<>();
+        latest.forEach((pos, record) -> {
+            if (record != null) upserts.add(record);
+            else deletes.add(pos);
+        });
+
+        try {
+            if (pool == null) {
+                if (!latest.isEmpty() || !stackSizes.isEmpty()) journalPinned = true;
+                return;
+            }
+            PooledConnection conn = pool.writer();
+            try {
+                inTransaction(conn, () -> {
+                    storage.deleteSpawners(conn, deletes);
+                    storage.upsertSpawners(conn, upserts);
+                    storage.updateStackSizes(conn, stackSizes);
+                    storage.saveCountdowns(conn, countdowns);
+                });
+            } catch (SQLException e) {
+                logger.log(Level.WARNING, "Spawner database batch failed, retrying writes one by one", e);
+                boolean lost = false;
+                for (SpawnerStorage.Pos pos : deletes) {
+                    lost |= !retry(conn, "remove spawner from database", () -> storage.deleteSpawners(conn, List.of(pos)));
+                }
+                for (SpawnerRecord record : upserts) {
+                    lost |= !retry(conn, "add spawner to database", () -> storage.upsertSpawners(conn, List.of(record)));
                 }
+                lost |= !retry(conn, "save spawner stack sizes", () -> storage.updateStackSizes(conn, stackSizes));
+                retry(conn, "save spawner countdowns", () -> storage.saveCountdowns(conn, countdowns));
+                if (lost) {
+                    journalPinned = true;
+                    logger.warning("Failed spawner writes are kept in the journal and retried on the next startup.");
+                }
+            }
+            checkpointJournal();
+        } finally {
+            synchronized (commitLock) {
+                if (lastSequence > committedSequence) committedSequence = lastSequence;
+                commitLock.notifyAll();
             }
+        }
+    }
+
+    private boolean retry(PooledConnection conn, String description, SqlWrite work) {
+        try {
+            inTransaction(conn, work);
+            return true;
         } catch (SQLException e) {
-            logger.log(Level.SEVERE, "Failed to query spawners by player name", e);
+            logger.log(Level.SEVERE, "Failed to " + description, e);
+            return false;
         }
-        return records;
-    }
-
-    private SpawnerRecord readRecord(ResultSet rs) throws SQLException {
-        return new SpawnerRecord(
-            rs.getString("player_uuid"),
-            rs.getString("player_name"),
-            rs.getString("spawner_id"),
-            rs.getString("world"),
-            rs.getInt("x"),
-            rs.getInt("y"),
-            rs.getInt("z"),
-            rs.getString("entity_type"),
-            rs.getString("mythic_mob_type"),
-            rs.getInt("delay"),
-            rs.getInt("required_player_range"),
-            rs.getInt("min_radius"),
-            rs.getInt("max_radius"),
-            rs.getInt("min_amount"),
-            rs.getInt("max_amount")
-        );
     }
 
     /**
-     * Close the database connection.
+     * Empties the journal if every journaled write has been committed.  Writes
+     * are journaled and queued under the same lock, so an empty queue seen
+     * under it means nothing journaled is still in flight.
+     */
+    private void checkpointJournal() {
+        if (journalPinned) {
+            replayPinnedJournal();
+            return;
+        }
+        synchronized (journalLock) {
+            if (journal != null && pendingWrites.isEmpty()) journal.reset();
+        }
+    }
+
+    /**
+     * Retries the writes a pinned journal is holding, at most once a minute,
+     * so a long-running server does not keep growing the file until its next
+     * restart.  The whole journal is replayed in order once everything in it
+     * has been attempted, which leaves each position at its latest state, and
+     * then emptied unless more was appended in the meantime.
+     */
+    private void replayPinnedJournal() {
+        long now = System.nanoTime();
+        if (pool == null || now - pinnedRetryNanos < PINNED_RETRY_NANOS) return;
+        pinnedRetryNanos = now;
+        List<SpawnerJournal.Entry> entries;
+        synchronized (journalLock) {
+            if (journal == null || !pendingWrites.isEmpty()) return;
+            entries = journal.readEntries();
+        }
+        try {
+            replay(entries);
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Failed to replay " + entries.size()
+                    + " journaled spawner write(s); retrying later", e);
+            return;
+        }
+        journalPinned = false;
+        logger.info("Replayed " + entries.size() + " journaled spawner write(s).");
+        synchronized (journalLock) {
+            if (journal != null && pendingWrites.isEmpty() && journal.size() == entries.size()) journal.reset();
+        }
+    }
+
+    private static void inTransaction(PooledConnection conn, SqlWrite work) throws SQLException {
+        conn.validate();
+        Connection raw = conn.raw();
+        raw.setAutoCommit(false);
+        try {
+            work.apply();
+            raw.commit();
+        } catch (SQLException | RuntimeException e) {
+            raw.rollback();
+            throw e;
+        } finally {
+            raw.setAutoCommit(true);
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> future, T fallback) {
+        try {
+            return future.join();
+        } catch (CompletionException | CancellationException e) {
+            return fallback;
+        }
+    }
+
+    @FunctionalInterface
+    private interface SqlWork<T> {
+        T run(PooledConnection conn) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface SqlWrite {
+        void apply() throws SQLException;
+    }
+
+    /**
+     * One queued write: exactly one of {@code record}, {@code remove} or
+     * {@code countdowns} is set.  A positive {@code stackSize} turns
+     * {@code remove} into the position whose stack size is set instead.
+     */
+    private static final class PendingWrite {
+        final long sequence;
+        final SpawnerRecord record;
+        final SpawnerStorage.Pos remove;
+        final int stackSize;
+        final List<TickState> countdowns;
+
+        PendingWrite(long sequence, SpawnerRecord record, SpawnerStorage.Pos remove, int stackSize,
+                     List<TickState> countdowns) {
+            this.sequence   = sequence;
+            this.record     = record;
+            this.remove     = remove;
+            this.stackSize  = stackSize;
+            this.countdowns = countdowns;
+        }
+    }
+
+    /**
+     * Flush every queued write, stop the writer thread and close the connection
+     * and the journal.
      */
     public void close() {
+        writeExecutor.shutdown();
         try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-                logger.info("SpawnerDatabase closed.");
+            if (writeExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+                flushWrites(); // anything queued after shutdown started
+            } else {
+                logger.warning("Timed out waiting for queued spawner database writes.");
+            }
+            synchronized (commitLock) {
+                closed = true;
+                commitLock.notifyAll();
+            }
+            readExecutor.shutdown();
+            readExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (journalLock) {
+            if (journal != null) {
+                journal.close();
+                journal = null;
             }
-        } catch (SQLException e) {
-            logger.log(Level.SEVERE, "Failed to close SpawnerDatabase", e);
         }
+        if (pool != null) {
+            pool.close(logger);
+            pool = null;
+            logger.info("SpawnerDatabase closed.");
+        }
+    }
+
+    /**
+     * Position and remaining countdown of a placed spawner, used to warm-start
+     * the tick manager after a restart.
+     */
+    public static class TickState {
+        private final String world;
+        private final int x, y, z;
+        private final String spawnerId;
+        private final int countdown;
+
+        public TickState(String world, int x, int y, int z, String spawnerId, int countdown) {
+            this.world = world;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.spawnerId = spawnerId;
+            this.countdown = countdown;
+        }
+
+        public String getWorld()     { return world; }
+        public int getX()            { return x; }
+        public int getY()            { return y; }
+        public int getZ()            { return z; }
+        public String getSpawnerId() { return spawnerId; }
+        public int getCountdown()    { return countdown; }
     }
 
     /**
@@ -218,12 +697,22 @@ public class SpawnerDatabase {
         private final int requiredPlayerRange;
         private final int minRadius, maxRadius;
         private final int minAmount, maxAmount;
+        private final int stackSize;
 
         public SpawnerRecord(String playerUuid, String playerName, String spawnerId,
                              String world, int x, int y, int z,
                              String entityType, String mythicMobType,
                              int delay, int requiredPlayerRange,
                              int minRadius, int maxRadius, int minAmount, int maxAmount) {
+            this(playerUuid, playerName, spawnerId, world, x, y, z, entityType, mythicMobType,
+                    delay, requiredPlayerRange, minRadius, maxRadius, minAmount, maxAmount, 1);
+        }
+
+        public SpawnerRecord(String playerUuid, String playerName, String spawnerId,
+                             String world, int x, int y, int z,
+                             String entityType, String mythicMobType,
+                             int delay, int requiredPlayerRange,
+                             int minRadius, int maxRadius, int minAmount, int maxAmount, int stackSize) {
             this.playerUuid = playerUuid;
             this.playerName = playerName;
             this.spawnerId = spawnerId;
@@ -239,6 +728,7 @@ public class SpawnerDatabase {
             this.maxRadius = maxRadius;
             this.minAmount = minAmount;
             this.maxAmount = maxAmount;
+            this.stackSize = stackSize;
         }
 
         public String getPlayerUuid()        { return playerUuid; }
@@ -256,5 +746,7 @@ public class SpawnerDatabase {
         public int getMaxRadius()            { return maxRadius; }
         public int getMinAmount()            { return minAmount; }
         public int getMaxAmount()            { return maxAmount; }
+        /** Number of spawners merged into this block; 1 for an unstacked spawner. */
+        public int getStackSize()            { return stackSize; }
     }
 }
@@ -1,6 +1,7 @@
 package com.wynvers.spawners;
 
 import org.bukkit.Bukkit;
+import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Player;
@@ -37,7 +38,10 @@ public class SpawnerEditorMenu implements Listener {
     private static final Set<String> DOUBLE_FIELDS = new HashSet<>(Arrays.asList("min-scale", "max-scale"));
 
     private final WSpawners plugin;
+    private static final int COLLECT_SLOT = 16;
+
     private final Map<UUID, String[]> pendingEdits = new HashMap<>();
+    private final Map<UUID, Location> openVirtualBlocks = new HashMap<>();
     private String menuTitle;
 
     public SpawnerEditorMenu(WSpawners plugin) {
@@ -54,6 +58,14 @@ public class SpawnerEditorMenu implements Listener {
     }
 
     public void open(Player player, SpawnerData data) {
+        open(player, data, null);
+    }
+
+    /**
+     * @param virtualBlock placed virtual spawner whose stored loot the menu
+     *                     offers to collect, or {@code null}
+     */
+    public void open(Player player, SpawnerData data, Location virtualBlock) {
         refreshTitle();
         Inventory inv = Bukkit.createInventory(null, 54, menuTitle);
 
@@ -75,6 +87,19 @@ public class SpawnerEditorMenu implements Listener {
         buildButton(inv, 37, data, "min-scale",             msg().get("field-min-scale"),               Material.ORANGE_DYE);
         buildButton(inv, 39, data, "max-scale",             msg().get("field-max-scale"),               Material.RED_DYE);
 
+        VirtualStorage storage = virtualBlock != null
+                ? plugin.getTickManager().getVirtualStorage(virtualBlock) : null;
+        if (storage != null) {
+            openVirtualBlocks.put(player.getUniqueId(), virtualBlock);
+            inv.setItem(COLLECT_SLOT, makeItem(Material.CHEST,
+                    msg().get("editor-virtual-collect"),
+                    msg().get("editor-virtual-contents",
+                            "items", String.valueOf(storage.itemCount()), "xp", String.valueOf(storage.xp())),
+                    msg().get("editor-virtual-click")));
+        } else {
+            openVirtualBlocks.remove(player.getUniqueId());
+        }
+
         inv.setItem(49, makeItem(Material.BARRIER, msg().get("editor-close")));
         player.openInventory(inv);
     }
@@ -138,6 +163,7 @@ public class SpawnerEditorMenu implements Listener {
         int slot = event.getRawSlot();
 
         if (slot == 49) { player.closeInventory(); return; }
+        if (slot == COLLECT_SLOT) { collectVirtual(player); return; }
 
         String[] fieldInfo = SLOT_FIELDS.get(slot);
         if (fieldInfo == null) return;
@@ -152,6 +178,25 @@ public class SpawnerEditorMenu implements Listener {
         player.sendMessage(msg().get("editor-input-prompt", "field", fieldLabel));
     }
 
+    /** Hands the loot stored in the open virtual spawner to the player and refreshes the menu. */
+    private void collectVirtual(Player player) {
+        Location block = openVirtualBlocks.get(player.getUniqueId());
+        if (block == null) return;
+        SpawnerTickManager tickManager = plugin.getTickManager();
+        VirtualStorage storage = tickManager.getVirtualStorage(block);
+        if (storage == null || storage.isEmpty()) {
+            player.sendMessage(msg().get("virtual-empty"));
+            return;
+        }
+        int xp = storage.xp();
+        int items = storage.giveTo(player, block.getBlock(), false);
+        tickManager.virtualStorageChanged(block);
+        player.sendMessage(msg().get("virtual-collected",
+                "items", String.valueOf(items), "xp", String.valueOf(xp)));
+        SpawnerData data = plugin.getSpawnerConfig().getSpawner(plugin.getOpenEditorSpawnerId(player.getUniqueId()));
+        if (data != null) open(player, data, block);
+    }
+
     @EventHandler
     public void onPlayerChat(AsyncPlayerChatEvent event) {
         UUID uuid = event.getPlayer().getUniqueId();
@@ -172,80 +217,50 @@ public class SpawnerEditorMenu implements Listener {
         String label     = info[2];
         boolean isDouble = DOUBLE_FIELDS.contains(fieldKey);
 
-        if (isDouble) {
-            double dValue;
-            try {
-                dValue = Double.parseDouble(input);
-            } catch (NumberFormatException e) {
-                player.sendMessage(msg().get("editor-invalid-value"));
-                return;
-            }
-            if (dValue < 0) {
-                player.sendMessage(msg().get("editor-negative-value"));
-                return;
-            }
-
-            SpawnerData data = plugin.getSpawnerConfig().getSpawner(spawnerId);
-            if (data == null) { player.sendMessage(msg().get("editor-spawner-not-found", "id", spawnerId)); return; }
-
-            applyDoubleValue(data, fieldKey, dValue);
-
-            final double savedValue = dValue;
-            Bukkit.getScheduler().runTask(plugin, () -> {
-                FileConfiguration config = plugin.getConfig();
-                plugin.getSpawnerConfig().saveDoubleField(config, spawnerId, fieldKey, savedValue);
-                plugin.saveConfig();
-                plugin.getSpawnerConfig().loadSpawners(plugin.getConfig());
-                SpawnerData updatedData = plugin.getSpawnerConfig().getSpawner(spawnerId);
-                if (updatedData == null) {
-                    plugin.getLogger().severe("Spawner not found after reload: " + spawnerId);
-                    player.sendMessage(msg().get("editor-error-reload"));
-                    return;
-                }
-                player.sendMessage(msg().get("editor-saved",
-                        "label", label,
-                        "value", String.valueOf(savedValue),
-                        "id", spawnerId));
-                plugin.getEditorMenu().open(player, updatedData);
-                plugin.setOpenEditorSpawnerId(player.getUniqueId(), spawnerId);
-            });
+        Number value;
+        try {
+            value = isDouble ? (Number) Double.parseDouble(input) : (Number) Integer.parseInt(input);
+        } catch (NumberFormatException e) {
+            player.sendMessage(msg().get("editor-invalid-value"));
+            return;
+        }
+        if (value.doubleValue() < 0) {
+            player.sendMessage(msg().get("editor-negative-value"));
+            return;
+        }
+
+        Bukkit.getScheduler().runTask(plugin, () -> saveEdit(player, spawnerId, fieldKey, label, value));
+    }
+
+    /**
+     * Applies an edit to the live spawner definition and queues it for
+     * config.yml.  Runs on the main thread; the file is written later by the
+     * {@link ConfigWriter}, so no other definition is re-parsed.
+     */
+    private void saveEdit(Player player, String spawnerId, String fieldKey, String label, Number value) {
+        SpawnerConfig spawnerConfig = plugin.getSpawnerConfig();
+        SpawnerData data = spawnerConfig.getSpawner(spawnerId);
+        if (data == null) {
+            player.sendMessage(msg().get("editor-spawner-not-found", "id", spawnerId));
+            return;
+        }
+        FileConfiguration config = plugin.getConfig();
+        if (value instanceof Double) {
+            applyDoubleValue(data, fieldKey, value.doubleValue());
+            spawnerConfig.saveDoubleField(config, spawnerId, fieldKey, value.doubleValue());
         } else {
-            int value;
-            try {
-                value = Integer.parseInt(input);
-            } catch (NumberFormatException e) {
-                player.sendMessage(msg().get("editor-invalid-value"));
-                return;
-            }
-            if (value < 0) {
-                player.sendMessage(msg().get("editor-negative-value"));
-                return;
-            }
-
-            SpawnerData data = plugin.getSpawnerConfig().getSpawner(spawnerId);
-            if (data == null) { player.sendMessage(msg().get("editor-spawner-not-found", "id", spawnerId)); return; }
-
-            applyValue(data, fieldKey, value);
-
-            Bukkit.getScheduler().runTask(plugin, () -> {
-                FileConfiguration config = plugin.getConfig();
-                plugin.getSpawnerConfig().saveField(config, spawnerId, fieldKey, value);
-                plugin.saveConfig();
-                plugin.getSpawnerConfig().loadSpawners(plugin.getConfig());
-                SpawnerData updatedData = plugin.getSpawnerConfig().getSpawner(spawnerId);
-                if (updatedData == null) {
-                    plugin.getLogger().severe("Spawner not found after reload: " + spawnerId);
-                    player.sendMessage(msg().get("editor-error-reload"));
-                    return;
-                }
-                player.sendMessage(msg().get("editor-saved",
-                        "label", label,
-                        "value", String.valueOf(value),
-                        "id", spawnerId));
-                plugin.getEditorMenu().open(player, updatedData);
-                plugin.setOpenEditorSpawnerId(player.getUniqueId(), spawnerId);
-            });
+            applyValue(data, fieldKey, value.intValue());
+            spawnerConfig.saveField(config, spawnerId, fieldKey, value.intValue());
         }
+        plugin.getConfigWriter().set(SpawnerConfig.fieldPath(spawnerId, fieldKey), value);
+        plugin.getSpawnerItemCache().invalidate(spawnerId);
+
+        player.sendMessage(msg().get("editor-saved",
+                "label", label,
+                "value", String.valueOf(value),
+                "id", spawnerId));
+        plugin.getEditorMenu().open(player, data, openVirtualBlocks.get(player.getUniqueId()));
+        plugin.setOpenEditorSpawnerId(player.getUniqueId(), spawnerId);
     }
 
     private ItemStack makeItem(Material material, String name, String... lore) {
@@ -0,0 +1,59 @@
+package com.wynvers.spawners;
+
+import org.bukkit.inventory.ItemStack;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Prebuilt spawner items, one template per spawner ID.
+ *
+ * <p>Building a spawner item parses its name and lore through MiniMessage and
+ * fills a block state with every setting.  The first request for a spawner
+ * builds a template; later requests get a {@code clone()} of it.  A template
+ * is rebuilt when the {@link SpawnerData} it came from is replaced (config
+ * reload) or when it is invalidated (editor save).</p>
+ */
+final class SpawnerItemCache {
+
+    private static final class Template {
+        final SpawnerData source;
+        final ItemStack item;
+
+        Template(SpawnerData source, ItemStack item) {
+            this.source = source;
+            this.item   = item;
+        }
+    }
+
+    private final Map<String, Template> templates = new ConcurrentHashMap<>();
+    private final AtomicLong hits   = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /** Returns a fresh copy of the item for {@code data}, building its template if needed. */
+    ItemStack get(SpawnerData data, Function<SpawnerData, ItemStack> builder) {
+        Template template = templates.get(data.getId());
+        if (template != null && template.source == data) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            template = new Template(data, builder.apply(data));
+            templates.put(data.getId(), template);
+        }
+        return template.item.clone();
+    }
+
+    void invalidate(String spawnerId) {
+        templates.remove(spawnerId);
+    }
+
+    void clear() {
+        templates.clear();
+    }
+
+    int size()    { return templates.size(); }
+    long hits()   { return hits.get(); }
+    long misses() { return misses.get(); }
+}
@@ -0,0 +1,292 @@
+package com.wynvers.spawners;
+
+import com.wynvers.spawners.SpawnerDatabase.SpawnerRecord;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, memory-mapped log of spawner placements, removals and stack
+ * size changes that have not reached the database yet.
+ *
+ * <p>An append is a copy into the mapped file, so it is cheap enough for the
+ * main thread, and the bytes survive a crash or kill of the server process
+ * (the OS still writes the mapped pages out).  Once the writer thread has
+ * committed everything journaled, the journal is reset to empty.  Entries
+ * still in the file at startup are replayed into the database.  The file
+ * never grows past {@value #MAX_SIZE} bytes; once full, appends are skipped
+ * until it is reset.</p>
+ *
+ * <p>File layout: an 8-byte header (magic, version), then entries of
+ * {@code [int length][int crc32][body]}, terminated by a zero length.  An
+ * entry's length is written last, so a torn write reads as the end of the log.</p>
+ *
+ * <p>Not thread-safe: {@link SpawnerDatabase} serializes access.</p>
+ */
+final class SpawnerJournal {
+
+    private static final int MAGIC   = 0x5753504A; // "WSPJ"
+    private static final int VERSION = 1;
+    private static final int HEADER  = 8;
+    private static final int INITIAL_SIZE = 1 << 20;
+    static final int MAX_SIZE = 64 << 20;
+
+    private static final byte PLACED  = 1;
+    private static final byte REMOVED = 2;
+    private static final byte STACKED = 3;
+
+    /**
+     * One journaled write: exactly one of {@code placed} or {@code removed} is
+     * set.  A positive {@code stackSize} means the stack at {@code removed}
+     * was resized rather than removed.
+     */
+    static final class Entry {
+        final SpawnerRecord placed;
+        final SpawnerStorage.Pos removed;
+        final int stackSize;
+
+        Entry(SpawnerRecord placed, SpawnerStorage.Pos removed, int stackSize) {
+            this.placed    = placed;
+            this.removed   = removed;
+            this.stackSize = stackSize;
+        }
+    }
+
+    private final File file;
+    private final Logger logger;
+    private final FileChannel channel;
+    private final CRC32 crc = new CRC32();
+    private MappedByteBuffer buffer;
+    private ByteBuffer scratch = ByteBuffer.allocate(512);
+    private int position = HEADER; // where the next entry goes
+    private int entries;
+    private boolean broken;        // a remap failed; appends are skipped
+    private boolean full;          // reached MAX_SIZE; appends are skipped until the next reset
+
+    private SpawnerJournal(File file, Logger logger) throws IOException {
+        this.file = file;
+        this.logger = logger;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(INITIAL_SIZE, channel.size()));
+    }
+
+    /**
+     * Opens (or creates) the journal file and positions it after the last
+     * intact entry.  Call {@link #readEntries()} to get what is left over
+     * from the previous run.
+     */
+    static SpawnerJournal open(File file, Logger logger) throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists()) parent.mkdirs();
+        SpawnerJournal journal = new SpawnerJournal(file, logger);
+        journal.initHeader();
+        return journal;
+    }
+
+    private void initHeader() {
+        int magic = buffer.getInt(0);
+        if (magic == MAGIC && buffer.getInt(4) == VERSION) return;
+        if (magic != 0) logger.warning("Unrecognized spawner journal " + file.getName() + ", starting a new one.");
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(HEADER, 0);
+    }
+
+    /**
+     * Reads every intact entry, oldest first, and moves the append position
+     * after the last one.  Stops at the first torn or corrupt entry.
+     */
+    List<Entry> readEntries() {
+        List<Entry> result = new ArrayList<>();
+        int pos = HEADER;
+        int capacity = buffer.capacity();
+        while (pos + 8 <= capacity) {
+            int length = buffer.getInt(pos);
+            if (length <= 0 || pos + 8 + length > capacity) break;
+            byte[] body = new byte[length];
+            buffer.get(pos + 8, body);
+            crc.reset();
+            crc.update(body);
+            if ((int) crc.getValue() != buffer.getInt(pos + 4)) {
+                logger.warning("Spawner journal " + file.getName() + " has a torn entry at byte " + pos
+                        + "; ignoring it and everything after it.");
+                break;
+            }
+            try {
+                result.add(decode(ByteBuffer.wrap(body)));
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                logger.warning("Spawner journal " + file.getName() + " has an unreadable entry at byte " + pos
+                        + "; ignoring it and everything after it.");
+                break;
+            }
+            pos += 8 + length;
+        }
+        position = pos;
+        entries = result.size();
+        return result;
+    }
+
+    void appendPlacement(SpawnerRecord record) {
+        if (broken || full) return;
+        scratch.clear();
+        scratch.put(PLACED);
+        putString(record.getPlayerUuid());
+        putString(record.getPlayerName());
+        putString(record.getSpawnerId());
+        putString(record.getWorld());
+        ensureScratch(12 + 6 * 4);
+        scratch.putInt(record.getX()).putInt(record.getY()).putInt(record.getZ());
+        putString(record.getEntityType());
+        putString(record.getMythicMobType());
+        ensureScratch(6 * 4);
+        scratch.putInt(record.getDelay()).putInt(record.getRequiredPlayerRange())
+               .putInt(record.getMinRadius()).putInt(record.getMaxRadius())
+               .putInt(record.getMinAmount()).putInt(record.getMaxAmount());
+        write();
+    }
+
+    void appendRemoval(SpawnerStorage.Pos pos) {
+        if (broken || full) return;
+        scratch.clear();
+        scratch.put(REMOVED);
+        putString(pos.world);
+        ensureScratch(12);
+        scratch.putInt(pos.x).putInt(pos.y).putInt(pos.z);
+        write();
+    }
+
+    /** Placements always start a new stack, so only later resizes are journaled with a size. */
+    void appendStackSize(SpawnerStorage.Pos pos, int stackSize) {
+        if (broken || full) return;
+        scratch.clear();
+        scratch.put(STACKED);
+        putString(pos.world);
+        ensureScratch(16);
+        scratch.putInt(pos.x).putInt(pos.y).putInt(pos.z).putInt(stackSize);
+        write();
+    }
+
+    /** Empties the journal.  Only call once every entry has been committed. */
+    void reset() {
+        full = false;
+        if (entries == 0 && position == HEADER) return;
+        buffer.putInt(HEADER, 0);
+        position = HEADER;
+        entries = 0;
+    }
+
+    int size() {
+        return entries;
+    }
+
+    /** Forces the mapped pages to disk and closes the file. */
+    void close() {
+        try {
+            buffer.force();
+            channel.close();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to close spawner journal " + file.getName(), e);
+        }
+    }
+
+    // ---- Encoding ----
+
+    private void write() {
+        int length = scratch.position();
+        crc.reset();
+        crc.update(scratch.array(), 0, length);
+        int needed = 8 + length + 4; // entry plus the terminator after it
+        if (position + needed > buffer.capacity() && !grow(position + needed)) return;
+        buffer.put(position + 8, scratch.array(), 0, length);
+        buffer.putInt(position + 4, (int) crc.getValue());
+        buffer.putInt(position + 8 + length, 0);
+        buffer.putInt(position, length); // last: makes the entry visible
+        position += 8 + length;
+        entries++;
+    }
+
+    private boolean grow(int minCapacity) {
+        if (minCapacity > MAX_SIZE) {
+            full = true;
+            logger.severe("Spawner journal " + file.getName() + " is full; further writes are not journaled"
+                    + " until the database has committed the ones in it");
+            return false;
+        }
+        long capacity = buffer.capacity();
+        while (capacity < minCapacity) capacity *= 2;
+        if (capacity > MAX_SIZE) capacity = MAX_SIZE;
+        try {
+            buffer.force();
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            return true;
+        } catch (IOException e) {
+            broken = true;
+            logger.log(Level.SEVERE, "Failed to grow spawner journal " + file.getName()
+                    + "; further writes are not journaled", e);
+            return false;
+        }
+    }
+
+    private void putString(String value) {
+        if (value == null) {
+            ensureScratch(2);
+            scratch.putShort((short) -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ensureScratch(2 + bytes.length);
+        scratch.putShort((short) bytes.length);
+        scratch.put(bytes);
+    }
+
+    private void ensureScratch(int extra) {
+        if (scratch.remaining() >= extra) return;
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(scratch.capacity() * 2, scratch.position() + extra));
+        scratch.flip();
+        larger.put(scratch);
+        scratch = larger;
+    }
+
+    private static Entry decode(ByteBuffer in) {
+        byte type = in.get();
+        if (type == PLACED) {
+            String uuid = getString(in), name = getString(in), spawnerId = getString(in), world = getString(in);
+            int x = in.getInt(), y = in.getInt(), z = in.getInt();
+            String entityType = getString(in), mythicMobType = getString(in);
+            return new Entry(new SpawnerRecord(uuid, name, spawnerId, world, x, y, z, entityType, mythicMobType,
+                    in.getInt(), in.getInt(), in.getInt(), in.getInt(), in.getInt(), in.getInt()), null, 0);
+        }
+        if (type == REMOVED) {
+            String world = getString(in);
+            return new Entry(null, new SpawnerStorage.Pos(world, in.getInt(), in.getInt(), in.getInt()), 0);
+        }
+        if (type == STACKED) {
+            String world = getString(in);
+            SpawnerStorage.Pos pos = new SpawnerStorage.Pos(world, in.getInt(), in.getInt(), in.getInt());
+            int stackSize = in.getInt();
+            if (stackSize <= 0) throw new IllegalArgumentException("Invalid stack size " + stackSize);
+            return new Entry(null, pos, stackSize);
+        }
+        throw new IllegalArgumentException("Unknown journal entry type " + type);
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = in.getShort();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,166 @@
+package com.wynvers.spawners;
+
+import com.wynvers.spawners.SpawnerDatabase.SpawnerRecord;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Paged spawner listings for {@code /spawner myspawners} and {@code /spawner info}.
+ *
+ * <p>Pages are read with keyset pagination on {@code (world, x, y, z)}: page N
+ * starts right after the last row of page N-1, so no query ever skips rows.
+ * Page boundaries and the rendered chat lines of every visited page are cached
+ * per listing for a short time, and dropped when the owner places or breaks a
+ * spawner.  Queries and rendering run on database threads.</p>
+ */
+final class SpawnerPages {
+
+    static final int PAGE_SIZE = 10;
+    private static final long TTL_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    /** A rendered page, ready to send. */
+    static final class Page {
+        final int number;
+        final int pageCount;
+        final int total;
+        final List<String> lines;
+
+        Page(int number, int pageCount, int total, List<String> lines) {
+            this.number    = number;
+            this.pageCount = pageCount;
+            this.total     = total;
+            this.lines     = lines;
+        }
+    }
+
+    /** Where a listing's rows come from: one owner UUID or one player name. */
+    private interface Source {
+        CompletableFuture<Integer> count();
+        CompletableFuture<List<SpawnerRecord>> page(SpawnerRecord after, int limit);
+    }
+
+    private static final class Listing {
+        final long createdNanos = System.nanoTime();
+        final Source source;
+        final List<SpawnerRecord> pageEnds = new ArrayList<>(); // last row of page i + 1
+        final Map<Integer, List<String>> rendered = new HashMap<>();
+        final Set<UUID> owners = new HashSet<>();
+        int total = -1;
+
+        Listing(Source source) {
+            this.source = source;
+        }
+    }
+
+    private final SpawnerDatabase database;
+    private final Map<String, Listing> listings = new ConcurrentHashMap<>();
+
+    SpawnerPages(SpawnerDatabase database) {
+        this.database = database;
+    }
+
+    /** Page of the spawners owned by a player UUID. */
+    CompletableFuture<Page> byOwner(UUID owner, int page, Function<SpawnerRecord, String> renderer) {
+        return load("uuid:" + owner, new Source() {
+            public CompletableFuture<Integer> count() { return database.countSpawnersAsync(owner); }
+            public CompletableFuture<List<SpawnerRecord>> page(SpawnerRecord after, int limit) {
+                return database.getSpawnersPageAsync(owner, after, limit);
+            }
+        }, page, renderer);
+    }
+
+    /** Page of the spawners owned by a player name (case-insensitive). */
+    CompletableFuture<Page> byName(String name, int page, Function<SpawnerRecord, String> renderer) {
+        return load("name:" + name.toLowerCase(Locale.ROOT), new Source() {
+            public CompletableFuture<Integer> count() { return database.countSpawnersByNameAsync(name); }
+            public CompletableFuture<List<SpawnerRecord>> page(SpawnerRecord after, int limit) {
+                return database.getSpawnersPageByNameAsync(name, after, limit);
+            }
+        }, page, renderer);
+    }
+
+    /** Drops every cached listing containing spawners of this owner. */
+    void invalidate(UUID owner) {
+        listings.entrySet().removeIf(e -> e.getKey().equals("uuid:" + owner) || ownsAny(e.getValue(), owner));
+    }
+
+    void clear() {
+        listings.clear();
+    }
+
+    private static boolean ownsAny(Listing listing, UUID owner) {
+        synchronized (listing) {
+            return listing.owners.contains(owner);
+        }
+    }
+
+    private CompletableFuture<Page> load(String key, Source source, int page,
+                                         Function<SpawnerRecord, String> renderer) {
+        long now = System.nanoTime();
+        listings.values().removeIf(l -> now - l.createdNanos > TTL_NANOS);
+        Listing listing = listings.computeIfAbsent(key, k -> new Listing(source));
+
+        CompletableFuture<Integer> total;
+        synchronized (listing) {
+            total = listing.total >= 0 ? CompletableFuture.completedFuture(listing.total) : source.count();
+        }
+        return total.thenCompose(count -> {
+            synchronized (listing) {
+                listing.total = count;
+            }
+            if (count == 0) {
+                // Do not cache "nothing yet"; the player may place their first spawner any moment.
+                listings.remove(key, listing);
+                return CompletableFuture.completedFuture(new Page(1, 1, 0, Collections.emptyList()));
+            }
+            int pageCount = (count + PAGE_SIZE - 1) / PAGE_SIZE;
+            int number = Math.max(1, Math.min(page, pageCount));
+            return walkTo(listing, number, renderer)
+                    .thenApply(lines -> new Page(number, pageCount, count, lines));
+        });
+    }
+
+    /**
+     * Returns the rendered lines of page {@code number}, fetching forward from
+     * the last known page boundary one page at a time if needed.
+     */
+    private CompletableFuture<List<String>> walkTo(Listing listing, int number,
+                                                   Function<SpawnerRecord, String> renderer) {
+        int next;
+        SpawnerRecord after;
+        synchronized (listing) {
+            List<String> cached = listing.rendered.get(number);
+            if (cached != null) return CompletableFuture.completedFuture(cached);
+            // Continue from the furthest known boundary that is not past the wanted page.
+            next = Math.min(number, listing.pageEnds.size() + 1);
+            after = next == 1 ? null : listing.pageEnds.get(next - 2);
+        }
+        return listing.source.page(after, PAGE_SIZE).thenCompose(rows -> {
+            List<String> lines = new ArrayList<>(rows.size());
+            for (SpawnerRecord row : rows) lines.add(renderer.apply(row));
+            synchronized (listing) {
+                if (!rows.isEmpty() && listing.pageEnds.size() == next - 1) {
+                    listing.pageEnds.add(rows.get(rows.size() - 1));
+                }
+                for (SpawnerRecord row : rows) listing.owners.add(UUID.fromString(row.getPlayerUuid()));
+                listing.rendered.put(next, Collections.unmodifiableList(lines));
+            }
+            if (next == number || rows.size() < PAGE_SIZE) {
+                return CompletableFuture.completedFuture(Collections.unmodifiableList(lines));
+            }
+            return walkTo(listing, number, renderer);
+        });
+    }
+}
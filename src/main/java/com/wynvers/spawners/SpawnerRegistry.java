@@ -0,0 +1,191 @@
+package com.wynvers.spawners;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Registered spawners grouped by world and chunk.
+ *
+ * <p>Each chunk owns a bucket keyed by packed block position (see
+ * {@link BlockKey}).  Buckets are switched on and off as their chunk loads and
+ * unloads, and only switched-on buckets are exposed through
+ * {@link #loadedBuckets()}, so a tick pass never touches parked spawners and
+ * never causes a chunk to load.  Parked spawners keep their countdown frozen
+ * until their chunk comes back.</p>
+ */
+final class SpawnerRegistry {
+
+    /** Number of groups loaded chunks are hashed into for staggered ticking. */
+    static final int STAGGER_SLOTS = 20;
+
+    static final class ChunkBucket {
+        final World world;
+        final long chunkKey;
+        final int staggerSlot;
+        final Map<Long, TickedSpawner> spawners = new HashMap<>();
+        boolean loaded;
+        int loadGeneration; // bumped on every load so spawners re-check their block once
+        boolean queued;     // waiting in the staggered-mode backlog
+        private int loadedIndex = -1;
+        private int slotIndex   = -1;
+
+        ChunkBucket(World world, long chunkKey) {
+            this.world       = world;
+            this.chunkKey    = chunkKey;
+            this.staggerSlot = Math.floorMod(Long.hashCode(chunkKey * 0x9E3779B97F4A7C15L), STAGGER_SLOTS);
+        }
+
+        int chunkX() { return BlockKey.chunkX(chunkKey); }
+        int chunkZ() { return BlockKey.chunkZ(chunkKey); }
+    }
+
+    private final Map<UUID, Map<Long, ChunkBucket>> worlds = new HashMap<>();
+    private final List<ChunkBucket> loaded = new ArrayList<>();
+    private final List<List<ChunkBucket>> staggerSlots = new ArrayList<>(STAGGER_SLOTS);
+    private int size;
+
+    SpawnerRegistry() {
+        for (int i = 0; i < STAGGER_SLOTS; i++) staggerSlots.add(new ArrayList<>());
+    }
+
+    TickedSpawner get(Location loc) {
+        ChunkBucket bucket = bucket(loc.getWorld(), loc.getBlockX() >> 4, loc.getBlockZ() >> 4);
+        return bucket != null ? bucket.spawners.get(BlockKey.pack(loc.getBlockX(), loc.getBlockY(), loc.getBlockZ())) : null;
+    }
+
+    /**
+     * Returns the spawner registered at {@code loc}, creating it (and its chunk
+     * bucket) if needed.  A new bucket starts switched on only if the chunk is
+     * already loaded; this check never loads the chunk.
+     */
+    TickedSpawner getOrCreate(Location loc) {
+        World world = loc.getWorld();
+        int x = loc.getBlockX(), y = loc.getBlockY(), z = loc.getBlockZ();
+        long chunkKey = BlockKey.chunk(x >> 4, z >> 4);
+        Map<Long, ChunkBucket> chunks = worlds.computeIfAbsent(world.getUID(), k -> new HashMap<>());
+        ChunkBucket bucket = chunks.get(chunkKey);
+        if (bucket == null) {
+            bucket = new ChunkBucket(world, chunkKey);
+            chunks.put(chunkKey, bucket);
+            setLoaded(bucket, world.isChunkLoaded(x >> 4, z >> 4));
+        }
+        long key = BlockKey.pack(x, y, z);
+        TickedSpawner spawner = bucket.spawners.get(key);
+        if (spawner == null) {
+            spawner = new TickedSpawner(key, new Location(world, x, y, z), bucket);
+            bucket.spawners.put(key, spawner);
+            size++;
+        }
+        return spawner;
+    }
+
+    TickedSpawner remove(Location loc) {
+        ChunkBucket bucket = bucket(loc.getWorld(), loc.getBlockX() >> 4, loc.getBlockZ() >> 4);
+        if (bucket == null) return null;
+        TickedSpawner spawner = bucket.spawners.get(BlockKey.pack(loc.getBlockX(), loc.getBlockY(), loc.getBlockZ()));
+        if (spawner != null) remove(spawner);
+        return spawner;
+    }
+
+    void remove(TickedSpawner spawner) {
+        ChunkBucket bucket = spawner.bucket;
+        if (bucket.spawners.remove(spawner.key) == null) return;
+        size--;
+        if (bucket.spawners.isEmpty()) {
+            setLoaded(bucket, false);
+            Map<Long, ChunkBucket> chunks = worlds.get(bucket.world.getUID());
+            if (chunks != null) {
+                chunks.remove(bucket.chunkKey);
+                if (chunks.isEmpty()) worlds.remove(bucket.world.getUID());
+            }
+        }
+    }
+
+    ChunkBucket bucket(World world, int chunkX, int chunkZ) {
+        if (world == null) return null;
+        Map<Long, ChunkBucket> chunks = worlds.get(world.getUID());
+        return chunks != null ? chunks.get(BlockKey.chunk(chunkX, chunkZ)) : null;
+    }
+
+    void setLoaded(ChunkBucket bucket, boolean isLoaded) {
+        if (bucket.loaded == isLoaded) return;
+        bucket.loaded = isLoaded;
+        List<ChunkBucket> slot = staggerSlots.get(bucket.staggerSlot);
+        if (isLoaded) {
+            bucket.loadGeneration++;
+            bucket.loadedIndex = loaded.size();
+            loaded.add(bucket);
+            bucket.slotIndex = slot.size();
+            slot.add(bucket);
+        } else {
+            // Swap-remove keeps unloading O(1) regardless of how many chunks are active.
+            int index = bucket.loadedIndex;
+            ChunkBucket last = loaded.remove(loaded.size() - 1);
+            if (last != bucket) {
+                loaded.set(index, last);
+                last.loadedIndex = index;
+            }
+            bucket.loadedIndex = -1;
+
+            index = bucket.slotIndex;
+            last = slot.remove(slot.size() - 1);
+            if (last != bucket) {
+                slot.set(index, last);
+                last.slotIndex = index;
+            }
+            bucket.slotIndex = -1;
+        }
+    }
+
+    /** Drops every registration in the given world, e.g. when it unloads. */
+    void removeWorld(World world) {
+        Map<Long, ChunkBucket> chunks = worlds.remove(world.getUID());
+        if (chunks == null) return;
+        for (ChunkBucket bucket : chunks.values()) {
+            setLoaded(bucket, false);
+            size -= bucket.spawners.size();
+        }
+    }
+
+    /** Buckets whose chunk is currently loaded. Must not be modified while iterating. */
+    List<ChunkBucket> loadedBuckets() {
+        return Collections.unmodifiableList(loaded);
+    }
+
+    /** Loaded buckets hashed into the given stagger slot. Must not be modified while iterating. */
+    List<ChunkBucket> staggerSlot(int slot) {
+        return staggerSlots.get(slot);
+    }
+
+    Collection<ChunkBucket> buckets(World world) {
+        Map<Long, ChunkBucket> chunks = worlds.get(world.getUID());
+        return chunks != null ? chunks.values() : Collections.emptyList();
+    }
+
+    /** Visits every registered spawner, loaded or not. Must not modify the registry. */
+    void forEach(Consumer<TickedSpawner> action) {
+        for (Map<Long, ChunkBucket> chunks : worlds.values()) {
+            for (ChunkBucket bucket : chunks.values()) bucket.spawners.values().forEach(action);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        worlds.clear();
+        loaded.clear();
+        staggerSlots.forEach(List::clear);
+        size = 0;
+    }
+}
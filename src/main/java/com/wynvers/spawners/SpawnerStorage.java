@@ -0,0 +1,104 @@
+package com.wynvers.spawners;
+
+import com.wynvers.spawners.SpawnerDatabase.SpawnerRecord;
+import com.wynvers.spawners.SpawnerDatabase.TickState;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Persistence backend behind {@link SpawnerDatabase}.
+ *
+ * <p>Implementations only translate calls into SQL for their dialect; threading,
+ * write batching and caching stay in {@code SpawnerDatabase}.  Every method
+ * except {@link #openPool} and {@link #streamTickStates} runs on the connection
+ * it is given and must not commit or close it.</p>
+ */
+interface SpawnerStorage {
+
+    /** Block position of a spawner row. */
+    final class Pos {
+        final String world;
+        final int x, y, z;
+
+        Pos(String world, int x, int y, int z) {
+            this.world = world;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Pos)) return false;
+            Pos other = (Pos) o;
+            return x == other.x && y == other.y && z == other.z && world.equals(other.world);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(world, x, y, z);
+        }
+    }
+
+    /** Short name for log messages, e.g. {@code "SQLite"}. */
+    String describe();
+
+    /** Opens the connection pool, migrating the schema on the writer connection first. */
+    ConnectionPool openPool(int readerConnections) throws SQLException;
+
+    /** Inserts the given spawners, replacing any row already at the same position. */
+    void upsertSpawners(PooledConnection conn, List<SpawnerRecord> records) throws SQLException;
+
+    void deleteSpawners(PooledConnection conn, List<Pos> positions) throws SQLException;
+
+    void saveCountdowns(PooledConnection conn, List<TickState> states) throws SQLException;
+
+    /** Sets the stack size of existing rows; positions without a row are ignored. */
+    void updateStackSizes(PooledConnection conn, Map<Pos, Integer> stackSizes) throws SQLException;
+
+    /** @return the owner, or {@code null} if no spawner is recorded there */
+    UUID getOwner(PooledConnection conn, String world, int x, int y, int z) throws SQLException;
+
+    List<SpawnerRecord> getSpawners(PooledConnection conn, UUID playerUuid) throws SQLException;
+
+    /** Case-insensitive lookup on the last known player name. */
+    List<SpawnerRecord> getSpawnersByName(PooledConnection conn, String playerName) throws SQLException;
+
+    /**
+     * One page of a player's spawners in {@code (world, x, y, z)} order,
+     * starting strictly after {@code after} ({@code null} for the first page).
+     */
+    List<SpawnerRecord> getSpawnersPage(PooledConnection conn, UUID playerUuid, Pos after, int limit)
+            throws SQLException;
+
+    /** Same as {@link #getSpawnersPage}, matching the player name case-insensitively. */
+    List<SpawnerRecord> getSpawnersPageByName(PooledConnection conn, String playerName, Pos after, int limit)
+            throws SQLException;
+
+    int countSpawners(PooledConnection conn, UUID playerUuid) throws SQLException;
+
+    int countSpawnersByName(PooledConnection conn, String playerName) throws SQLException;
+
+    /** Owners of every spawner in a chunk, keyed by {@link BlockKey#pack}. */
+    Map<Long, UUID> getChunkOwners(PooledConnection conn, String world, int chunkX, int chunkZ) throws SQLException;
+
+    /**
+     * Every spawner in the inclusive chunk rectangle, read with a range scan
+     * on the {@code (world, chunk_x, chunk_z)} index.
+     */
+    List<SpawnerRecord> getSpawnersInRegion(PooledConnection conn, String world,
+                                            int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ)
+            throws SQLException;
+
+    /**
+     * Streams every spawner's tick state, ordered by world and chunk, on a
+     * dedicated read-only connection.
+     */
+    void streamTickStates(int batchSize, Consumer<List<TickState>> batchConsumer) throws SQLException;
+}
@@ -2,46 +2,111 @@ package com.wynvers.spawners;
 
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
-import org.bukkit.Particle;
 import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockState;
 import org.bukkit.block.CreatureSpawner;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityDeathEvent;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.EntitiesLoadEvent;
+import org.bukkit.event.world.EntitiesUnloadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+import org.bukkit.persistence.PersistentDataContainer;
 import org.bukkit.persistence.PersistentDataType;
 import org.bukkit.scheduler.BukkitTask;
 
+import java.io.IOException;
 import java.util.ArrayDeque;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Queue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Random;
-import java.util.Set;
+import java.util.function.Function;
+import java.util.logging.Level;
 
-public class SpawnerTickManager {
+public class SpawnerTickManager implements Listener {
 
     private static final int TICK_INTERVAL = 20;
+    private static final int STALE_REWRITES_PER_TICK = 8;
+    private static final int VIRTUAL_WRITE_INTERVAL = 1200;
+    private static final int DEFAULT_KILLER_RANGE = 16; // virtual spawners without a required-player-range
+
+    /** {@code GENERIC_SCALE} (Minecraft 1.20.5+), looked up once; null on older servers. */
+    private static final org.bukkit.attribute.Attribute SCALE_ATTRIBUTE = resolveScaleAttribute();
 
     private final WSpawners plugin;
     private final Random random = new Random();
 
-    private final Map<String, Integer>     countdowns  = new HashMap<>();
-    private final Map<String, Location>    locations   = new HashMap<>();
-    private final Map<String, SpawnParams> paramsCache = new HashMap<>();
-    private final Queue<Runnable> spawnQueue = new ArrayDeque<>();
+    private final SpawnerRegistry registry = new SpawnerRegistry();
+    private final PlayerIndex playerIndex = new PlayerIndex();
+    private final PlayerIndex.Nearby nearby = new PlayerIndex.Nearby();
+    private final ArrayDeque<TickedSpawner> due = new ArrayDeque<>();
+    private final ArrayDeque<SpawnerRegistry.ChunkBucket> staggerBacklog = new ArrayDeque<>();
+    private final List<TickedSpawner> toRemove = new ArrayList<>();
+    private final SpawnQueue spawnQueue = new SpawnQueue();
+    private final ArrayDeque<TickedSpawner> staleQueue = new ArrayDeque<>();
+    private final ChunkEntityCounter chunkEntities = new ChunkEntityCounter(TICK_INTERVAL);
+    private final MobAggregator aggregator;
+    private final SpawnedEntityTracker spawnedEntities;
+    private final VirtualLoot virtualLoot;
+    private final List<TickedSpawner> virtualWrites = new ArrayList<>();
+    private final SparkEmitter sparks = new SparkEmitter();
+    private final Function<SpawnerRegistry.ChunkBucket, PlayerIndex.Nearby> sparkViewers =
+            bucket -> nearbyPlayers(bucket, sparks.getRenderDistance());
+    // Reused for every spawn position; only valid until the next use.
+    private final SpawnPlacement placement = new SpawnPlacement(random);
 
     private BukkitTask task;
+    private TickMode tickMode = TickMode.INTERVAL;
+    private TimingWheel wheel;      // non-null only in WHEEL mode
+    private long currentTick;
+    private long tickStartNanos;
+    private long tickBudgetNanos;   // 0 = unlimited
+    private long spawnBudgetNanos;  // 0 = unlimited
+    private long indexTick = -1;    // tick the player index was last rebuilt on
+    private SpawnerRegistry.ChunkBucket nearbyBucket; // chunk the nearby list was collected for
     private boolean sparkEnabled    = true;
     private int maxSpawnsPerTick    = 4;
     private int maxNearbyEntities   = 0; // 0 = disabled
+    private int widestPlayerRange   = 16; // widest required-player-range of the definitions, for per-chunk lookups
+    private boolean rewriteStale    = false;
+    private int virtualMaxItems     = 2304;
+    private int virtualMaxXp        = 100000;
+    private boolean virtualPlayerKills = true;
+
+    /** How spawner countdowns are driven; see {@code tick-mode} in config.yml. */
+    public enum TickMode {
+        /** Every loaded spawner is evaluated once per second. */
+        INTERVAL,
+        /** Loaded chunks are hashed into 20 groups and one group is evaluated per server tick. */
+        STAGGERED,
+        /**
+         * Spawners wait in a timing wheel and are woken when their countdown
+         * expires, or once a second while they need a player in range.
+         */
+        WHEEL
+    }
 
     /**
      * PDC values read once from the block state and cached for the lifetime of
      * the registration.  Re-populated whenever the spawner is re-registered.
+     *
+     * <p>Settings come from the shared {@link SpawnerData} definition, looked
+     * up once and re-resolved only after a config reload, so edits to it apply
+     * on the spawner's next cycle.  The block's own PDC values are only used
+     * when the block carries the override marker, or when its definition no
+     * longer exists.</p>
      */
-    private static final class SpawnParams {
+    static final class SpawnParams {
         final String  spawnerId;
         final String  mmType;          // nullable
         final Integer pdcMinRadius;    // nullable → fall back to SpawnerData
@@ -51,12 +116,19 @@ public class SpawnerTickManager {
         final Double  pdcMinScale;
         final Double  pdcMaxScale;
         final int     blockPlayerRange; // cs.getRequiredPlayerRange() fallback
+        final int     blockDelay;       // cs.getMinSpawnDelay() fallback
+        final boolean override;         // PDC values win over the definition
+
+        Integer definitionVersion;      // version the block's PDC was written from; null for old blocks
+        SpawnerData definition;         // cached definition lookup
+        int definitionGeneration = -1;  // SpawnerConfig generation of that lookup
+        boolean rewriteQueued;
 
         SpawnParams(String spawnerId, String mmType,
                     Integer pdcMinRadius, Integer pdcMaxRadius,
                     Integer pdcMinAmount, Integer pdcMaxAmount,
                     Double pdcMinScale,   Double pdcMaxScale,
-                    int blockPlayerRange) {
+                    int blockPlayerRange, int blockDelay, boolean override, Integer definitionVersion) {
             this.spawnerId        = spawnerId;
             this.mmType           = mmType;
             this.pdcMinRadius     = pdcMinRadius;
@@ -66,116 +138,576 @@ public class SpawnerTickManager {
             this.pdcMinScale      = pdcMinScale;
             this.pdcMaxScale      = pdcMaxScale;
             this.blockPlayerRange = blockPlayerRange;
+            this.blockDelay       = blockDelay;
+            this.override         = override;
+            this.definitionVersion = definitionVersion;
+        }
+
+        /** Whether the block's PDC values win over {@code data}. */
+        boolean blockWins(SpawnerData data) {
+            return override || data == null;
         }
     }
 
     public SpawnerTickManager(WSpawners plugin) {
         this.plugin = plugin;
+        this.aggregator = new MobAggregator(plugin.getAggregateCountKey(), plugin.getAggregateGroupKey(),
+                plugin.getMessageManager());
+        this.spawnedEntities = new SpawnedEntityTracker(plugin.getSpawnedByKey(), aggregator);
+        this.virtualLoot = new VirtualLoot(random, plugin.getLogger());
     }
 
     public void start() {
-        task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, TICK_INTERVAL, TICK_INTERVAL);
+        task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1, 1);
     }
 
     public void stop() {
         if (task != null) { task.cancel(); task = null; }
-        countdowns.clear();
-        locations.clear();
-        paramsCache.clear();
+        writeVirtualStorages();
+        sparks.clear();
+        if (wheel != null) wheel.clear();
+        due.clear();
+        staggerBacklog.clear();
+        registry.clear();
+        playerIndex.clear();
+        nearby.reset();
+        nearbyBucket = null;
         spawnQueue.clear();
+        staleQueue.clear();
+        spawnedEntities.clear();
+        chunkEntities.clear();
+        virtualLoot.clear();
     }
 
     public void register(Location loc, int delayTicks) {
-        String key = locKey(loc);
-        locations.put(key, loc.clone());
-        countdowns.put(key, delayTicks > 0 ? delayTicks : 200);
-        paramsCache.remove(key); // invalidate so params are re-read on next tick
+        TickedSpawner spawner = registry.getOrCreate(loc);
+        spawner.countdown = delayTicks > 0 ? delayTicks : 200;
+        spawner.params = null; // invalidate so params are re-read on next tick
+        spawner.lastTick = currentTick;
+        spawner.counting = true;
+        if (wheel != null && spawner.bucket.loaded) schedule(spawner);
+    }
+
+    /**
+     * Registers spawners restored from the database on startup.  Positions
+     * already registered (placed or interacted with since enable) and worlds
+     * that are not loaded are skipped.
+     *
+     * @return the number of spawners registered
+     */
+    public int registerAll(List<SpawnerDatabase.TickState> states) {
+        int registered = 0;
+        for (SpawnerDatabase.TickState state : states) {
+            World world = Bukkit.getWorld(state.getWorld());
+            if (world == null) continue;
+            Location loc = new Location(world, state.getX(), state.getY(), state.getZ());
+            if (registry.get(loc) != null) continue;
+            register(loc, state.getCountdown());
+            registered++;
+        }
+        return registered;
+    }
+
+    /** Remaining countdown of every registered spawner, for persisting on shutdown. */
+    public List<SpawnerDatabase.TickState> snapshotCountdowns() {
+        List<SpawnerDatabase.TickState> states = new ArrayList<>(registry.size());
+        registry.forEach(spawner -> {
+            int countdown = spawner.countdown;
+            if (spawner.scheduled && spawner.counting) countdown = countdownLeft(spawner);
+            Location loc = spawner.location;
+            states.add(new SpawnerDatabase.TickState(loc.getWorld().getName(),
+                    loc.getBlockX(), loc.getBlockY(), loc.getBlockZ(), null, Math.max(1, countdown)));
+        });
+        return states;
     }
 
     public void unregister(Location loc) {
-        String key = locKey(loc);
-        locations.remove(key);
-        countdowns.remove(key);
-        paramsCache.remove(key);
+        TickedSpawner spawner = registry.get(loc);
+        if (spawner != null) remove(spawner);
+    }
+
+    /**
+     * Updates the stack size of a registered spawner after spawners were
+     * merged into it or taken off it.  Unregistered spawners pick the new size
+     * up from the block when they are registered.
+     */
+    public void setStackSize(Location loc, int stackSize) {
+        TickedSpawner spawner = registry.get(loc);
+        if (spawner != null) spawner.stackSize = Math.max(1, stackSize);
+    }
+
+    /**
+     * Makes a registered spawner re-read its block on its next evaluation,
+     * e.g. after its override marker changed.
+     */
+    public void refresh(Location loc) {
+        TickedSpawner spawner = registry.get(loc);
+        if (spawner != null) spawner.params = null;
     }
 
     public boolean isRegistered(Location loc) {
-        return countdowns.containsKey(locKey(loc));
+        return registry.get(loc) != null;
+    }
+
+    /** Number of registered spawners, including those parked in unloaded chunks. */
+    public int getRegisteredCount() {
+        return registry.size();
     }
 
     public void setSparkEnabled(boolean sparkEnabled) {
         this.sparkEnabled = sparkEnabled;
     }
 
+    /**
+     * Sets the radius players are collected with around each chunk to the
+     * widest {@code required-player-range} of the definitions, so spawners in
+     * one chunk share a single lookup.  Wider per-block ranges and the spark
+     * render distance look up their own chunk without widening it.
+     */
+    public void setPlayerRange(Collection<SpawnerData> definitions) {
+        int widest = 16;
+        for (SpawnerData data : definitions) widest = Math.max(widest, data.getRequiredPlayerRange());
+        widestPlayerRange = widest;
+        nearbyBucket = null;
+    }
+
+    /** See {@link SparkEmitter#setSettings}. */
+    public void setSparkSettings(int renderDistance, int maxPerChunk, int maxPerPlayer) {
+        sparks.setSettings(renderDistance, maxPerChunk, maxPerPlayer);
+    }
+
     public void setMaxSpawnsPerTick(int maxSpawnsPerTick) {
         this.maxSpawnsPerTick = Math.max(1, maxSpawnsPerTick);
     }
 
+    /**
+     * Caps on what one virtual spawner stores before its cycles stop adding
+     * loot, and whether its kills are credited to the nearest player, which
+     * unlocks the drops vanilla only gives for player kills.
+     */
+    public void setVirtualStorageSettings(int maxItems, int maxXp, boolean playerKills) {
+        this.virtualMaxItems    = Math.max(0, maxItems);
+        this.virtualMaxXp       = Math.max(0, maxXp);
+        this.virtualPlayerKills = playerKills;
+    }
+
     public void setMaxNearbyEntities(int maxNearbyEntities) {
         this.maxNearbyEntities = Math.max(0, maxNearbyEntities);
     }
 
-    private void tick() {
-        // Process pending spawns from queue (rate-limited)
-        int spawnsProcessed = 0;
-        while (!spawnQueue.isEmpty() && spawnsProcessed < maxSpawnsPerTick) {
-            spawnQueue.poll().run();
-            spawnsProcessed++;
+    /**
+     * Settings for spawners in {@code aggregate} mode.
+     *
+     * @param radius   blocks around the spawn point searched for a stack to fold a mob into
+     * @param maxCount most mobs one aggregated entity carries
+     */
+    public void setAggregationSettings(int radius, int maxCount) {
+        aggregator.setSettings(radius, maxCount);
+    }
+
+    /**
+     * Configures the spawn pipeline between a spawner firing and its mobs
+     * appearing.  The queue is drained every server tick, up to
+     * {@code max-spawns-per-tick} mobs or {@code budgetMicros}, whichever comes first.
+     *
+     * @param capacity     maximum number of queued spawner cycles
+     * @param budgetMicros drain time budget per tick in microseconds, 0 for unlimited
+     * @param overflow     what to do when the queue is full
+     */
+    public void setSpawnQueueSettings(int capacity, int budgetMicros, String overflow) {
+        spawnQueue.setCapacity(capacity);
+        this.spawnBudgetNanos = Math.max(0, budgetMicros) * 1000L;
+        try {
+            spawnQueue.setPolicy(SpawnQueue.OverflowPolicy.parse(overflow));
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("Invalid spawn-queue overflow policy '" + overflow + "', using drop-oldest.");
+            spawnQueue.setPolicy(SpawnQueue.OverflowPolicy.DROP_OLDEST);
         }
+    }
 
-        Set<String> toRemove = new HashSet<>();
+    // ---- Metrics ----
 
-        for (Map.Entry<String, Integer> entry : countdowns.entrySet()) {
-            String key = entry.getKey();
-            Location loc = locations.get(key);
-            if (loc == null) { toRemove.add(key); continue; }
+    public int getSpawnQueueDepth()            { return spawnQueue.size(); }
+    public int getSpawnQueueCapacity()         { return spawnQueue.capacity(); }
+    public int getQueuedMobCount()             { return spawnQueue.queuedMobs(); }
+    public long getDroppedSpawnCycles()        { return spawnQueue.droppedCount(); }
+    public long getCoalescedSpawnCycles()      { return spawnQueue.coalescedCount(); }
+    public long getPausedSpawnCycles()         { return spawnQueue.pausedCount(); }
+    public int getLoadedChunkCount()           { return registry.loadedBuckets().size(); }
 
-            World world = loc.getWorld();
-            if (world == null) continue;
+    /** Milliseconds the oldest queued spawner cycle has been waiting, or 0 if the queue is empty. */
+    public long getOldestQueuedSpawnAgeMillis() {
+        return spawnQueue.oldestAgeNanos(System.nanoTime()) / 1_000_000L;
+    }
 
-            Block block = world.getBlockAt(loc);
-            if (block.getType() != org.bukkit.Material.SPAWNER) { toRemove.add(key); continue; }
+    public TickMode getTickMode() {
+        return tickMode;
+    }
 
-            // Use cached PDC params; populate via block.getState() only on first access.
-            SpawnParams params = paramsCache.get(key);
-            if (params == null) {
-                params = readAndCacheParams(key, block);
-                if (params == null) { toRemove.add(key); continue; }
+    /**
+     * Caps the time staggered and wheel modes spend evaluating spawners in one
+     * server tick; whatever is left carries over to the next tick.
+     *
+     * @param micros budget in microseconds, 0 for unlimited
+     */
+    public void setTickBudgetMicros(int micros) {
+        this.tickBudgetNanos = Math.max(0, micros) * 1000L;
+    }
+
+    /**
+     * Whether placed spawners whose PDC was written from an older version of
+     * their definition get it rewritten when their chunk loads.  Spawning
+     * already follows the definition either way; this keeps the blocks
+     * themselves (and items picked up from them by other plugins) current.
+     */
+    public void setRewriteStaleSpawners(boolean rewriteStale) {
+        this.rewriteStale = rewriteStale;
+        if (!rewriteStale) {
+            for (TickedSpawner spawner : staleQueue) {
+                if (spawner.params != null) spawner.params.rewriteQueued = false;
             }
+            staleQueue.clear();
+        }
+    }
 
-            SpawnerData data = plugin.getSpawnerConfig().getSpawner(params.spawnerId);
+    /**
+     * Switches the countdown driver.  Countdowns carry over, so spawners keep
+     * their progress across a {@code /spawner reload} that changes the mode.
+     */
+    public void setTickMode(TickMode mode) {
+        if (mode == tickMode) return;
+        tickMode = mode;
+        staggerBacklog.forEach(bucket -> bucket.queued = false);
+        staggerBacklog.clear();
+        if (mode == TickMode.WHEEL) {
+            wheel = new TimingWheel(currentTick);
+            for (SpawnerRegistry.ChunkBucket bucket : registry.loadedBuckets()) {
+                for (TickedSpawner spawner : bucket.spawners.values()) schedule(spawner);
+            }
+        } else if (wheel != null) {
+            for (SpawnerRegistry.ChunkBucket bucket : registry.loadedBuckets()) {
+                for (TickedSpawner spawner : bucket.spawners.values()) freeze(spawner);
+            }
+            // Carried-over spawners are already out of the wheel and keep their countdown.
+            due.clear();
+            wheel.clear();
+            wheel = null;
+        }
+    }
+
+    // ---- Chunk lifecycle ----
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        SpawnerRegistry.ChunkBucket bucket = registry.bucket(event.getWorld(),
+                event.getChunk().getX(), event.getChunk().getZ());
+        if (bucket == null) return;
+        registry.setLoaded(bucket, true);
+        for (TickedSpawner spawner : bucket.spawners.values()) {
+            // Time spent unloaded does not count towards the countdown.
+            spawner.lastTick = currentTick;
+            if (wheel != null) schedule(spawner);
+            if (rewriteStale && spawner.params != null) queueIfStale(spawner, spawner.params);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        chunkEntities.evict(event.getWorld(), event.getChunk().getX(), event.getChunk().getZ());
+        SpawnerRegistry.ChunkBucket bucket = registry.bucket(event.getWorld(),
+                event.getChunk().getX(), event.getChunk().getZ());
+        if (bucket == null) return;
+        for (TickedSpawner spawner : bucket.spawners.values()) writeVirtualStorage(spawner);
+        if (wheel != null) {
+            for (TickedSpawner spawner : bucket.spawners.values()) freeze(spawner);
+        }
+        registry.setLoaded(bucket, false);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        chunkEntities.evictWorld(event.getWorld());
+        playerIndex.evictWorld(event.getWorld());
+        nearbyBucket = null;
+        virtualLoot.clear(); // templates may belong to this world
+        for (SpawnerRegistry.ChunkBucket bucket : registry.buckets(event.getWorld())) {
+            for (TickedSpawner spawner : bucket.spawners.values()) writeVirtualStorage(spawner);
+        }
+        if (wheel != null) {
+            for (SpawnerRegistry.ChunkBucket bucket : registry.buckets(event.getWorld())) {
+                for (TickedSpawner spawner : bucket.spawners.values()) wheel.cancel(spawner);
+            }
+        }
+        registry.removeWorld(event.getWorld());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+        playerIndex.remove(event.getPlayer(), event.getFrom());
+        nearbyBucket = null;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        playerIndex.remove(event.getPlayer(), event.getPlayer().getWorld());
+        nearbyBucket = null;
+    }
+
+    // ---- Spawned entities ----
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntityDeath(EntityDeathEvent event) {
+        LivingEntity dead = event.getEntity();
+        int count = aggregator.count(dead);
+        spawnedEntities.untrack(dead.getUniqueId());
+        if (count > 1) respawnAggregate(dead, count - 1);
+    }
+
+    /** Replaces a dead aggregated entity with the next mob of its stack, carrying the rest of the count. */
+    private void respawnAggregate(LivingEntity dead, int count) {
+        SpawnerData data = plugin.getSpawnerConfig().getSpawner(aggregator.group(dead));
+        if (data == null) return;
+        Entity entity = spawnMob(data, data.getMythicMobType(), dead.getLocation(),
+                data.getMinScale(), data.getMaxScale());
+        if (!(entity instanceof LivingEntity)) return;
+        LivingEntity next = (LivingEntity) entity;
+        aggregator.start(next, data, count);
+        TickedSpawner spawner = spawnedEntities.inherit(dead, next, registry);
+        if (spawner != null && spawner.aggregate == dead) spawner.aggregate = next;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntitiesLoad(EntitiesLoadEvent event) {
+        for (Entity entity : event.getEntities()) spawnedEntities.reattach(entity, registry);
+    }
+
+    /**
+     * Tracks the spawner mobs already loaded in every world.  Entities that
+     * loaded before their spawner was registered, such as those in the spawn
+     * chunks during the warm start, were skipped by {@link #onEntitiesLoad}.
+     *
+     * @return the number of mobs newly tracked
+     */
+    public int reattachLoadedEntities() {
+        int before = spawnedEntities.size();
+        for (World world : Bukkit.getWorlds()) {
+            for (LivingEntity entity : world.getLivingEntities()) spawnedEntities.reattach(entity, registry);
+        }
+        return spawnedEntities.size() - before;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntitiesUnload(EntitiesUnloadEvent event) {
+        for (Entity entity : event.getEntities()) spawnedEntities.untrack(entity.getUniqueId());
+    }
+
+    /** Mobs currently tracked for {@code max-alive}. */
+    public int getTrackedEntityCount() {
+        return spawnedEntities.size();
+    }
+
+    // ---- Ticking ----
 
-            int playerRange = data != null ? data.getRequiredPlayerRange() : params.blockPlayerRange;
-            if (playerRange > 0) {
-                boolean playerNearby = world.getPlayers().stream()
-                        .anyMatch(p -> p.getLocation().distanceSquared(loc) <= (double) playerRange * playerRange);
-                if (!playerNearby) continue;
+    private void tick() {
+        currentTick++;
+
+        drainSpawnQueue();
+        if (!staleQueue.isEmpty()) rewriteStaleSpawners();
+        if (currentTick % TICK_INTERVAL == 0) spawnedEntities.sweep();
+        if (currentTick % VIRTUAL_WRITE_INTERVAL == 0 && !virtualWrites.isEmpty()) writeVirtualStorages();
+        tickStartNanos = System.nanoTime(); // the evaluation budget starts after the drain
+
+        if (wheel != null) {
+            tickWheel();
+        } else if (tickMode == TickMode.STAGGERED) {
+            tickStaggered();
+        } else if (currentTick % TICK_INTERVAL == 0) {
+            tickInterval();
+        }
+
+        if (!toRemove.isEmpty()) {
+            toRemove.forEach(this::remove);
+            toRemove.clear();
+        }
+        sparks.flush(currentTick, sparkViewers);
+    }
+
+    /** INTERVAL mode: every loaded spawner, once per second. */
+    private void tickInterval() {
+        for (SpawnerRegistry.ChunkBucket bucket : registry.loadedBuckets()) {
+            for (TickedSpawner spawner : bucket.spawners.values()) {
+                evaluate(spawner, TICK_INTERVAL);
             }
+        }
+    }
 
-            if (sparkEnabled) {
-                world.spawnParticle(Particle.ELECTRIC_SPARK,
-                        loc.clone().add(0.5, 0.5, 0.5), 5, 0.3, 0.3, 0.3, 0);
+    /**
+     * STAGGERED mode: the chunks hashed into this tick's slot join the backlog,
+     * which is then worked through until the tick budget runs out.  At least one
+     * chunk is evaluated per tick so an overloaded server still makes progress.
+     */
+    private void tickStaggered() {
+        for (SpawnerRegistry.ChunkBucket bucket
+                : registry.staggerSlot((int) (currentTick % SpawnerRegistry.STAGGER_SLOTS))) {
+            if (!bucket.queued) {
+                bucket.queued = true;
+                staggerBacklog.add(bucket);
+            }
+        }
+        SpawnerRegistry.ChunkBucket bucket;
+        while ((bucket = staggerBacklog.poll()) != null) {
+            bucket.queued = false;
+            if (bucket.loaded) {
+                for (TickedSpawner spawner : bucket.spawners.values()) {
+                    evaluate(spawner, (int) (currentTick - spawner.lastTick));
+                }
             }
+            if (budgetExceeded()) break;
+        }
+    }
+
+    /**
+     * WHEEL mode: only the spawners whose countdown is due this tick, plus any
+     * carried over from a previous tick that ran out of budget.
+     */
+    private void tickWheel() {
+        wheel.advance(currentTick, due);
+        TickedSpawner spawner;
+        while ((spawner = due.poll()) != null) {
+            // Chunk unloaded while carried over: it is rescheduled when the chunk loads again.
+            if (spawner.removed || !spawner.bucket.loaded) continue;
+            int next = evaluate(spawner, (int) (currentTick - spawner.lastTick));
+            if (next > 0) wheel.schedule(spawner, currentTick + next);
+            if (budgetExceeded()) break;
+        }
+    }
 
-            int remaining = entry.getValue() - TICK_INTERVAL;
-            if (remaining > 0) { entry.setValue(remaining); continue; }
+    private boolean budgetExceeded() {
+        return tickBudgetNanos > 0 && System.nanoTime() - tickStartNanos >= tickBudgetNanos;
+    }
+
+    /**
+     * Validates one spawner, checks for a player in range and advances its
+     * countdown by {@code elapsed} ticks, spawning when it runs out.
+     *
+     * @return ticks until the spawner next needs evaluating, or -1 if it was dropped
+     */
+    private int evaluate(TickedSpawner spawner, int elapsed) {
+        SpawnerRegistry.ChunkBucket bucket = spawner.bucket;
+        World world = bucket.world;
+        Location loc = spawner.location;
+        spawner.lastTick = currentTick;
+
+        // Block types are re-checked once per chunk load rather than every pass.
+        if (spawner.validatedGeneration != bucket.loadGeneration) {
+            if (!isSpawnerBlock(world, loc)) { toRemove.add(spawner); return -1; }
+            spawner.validatedGeneration = bucket.loadGeneration;
+        }
+
+        // Use cached PDC params; populate via block.getState() only on first access.
+        SpawnParams params = spawner.params;
+        if (params == null) {
+            params = readAndCacheParams(spawner, world.getBlockAt(loc));
+            if (params == null) { toRemove.add(spawner); return -1; }
+        }
 
-            spawnMobs(loc, params, data);
+        SpawnerData data = definition(params);
 
-            int delay = data != null ? data.getDelay() : 200;
-            if (delay <= 0) delay = 200;
-            entry.setValue(delay);
+        int playerRange = params.blockWins(data) ? params.blockPlayerRange : data.getRequiredPlayerRange();
+        if (playerRange > 0
+                && !nearbyPlayers(bucket, playerRange).anyWithin(loc.getX(), loc.getY(), loc.getZ(), playerRange)) {
+            // Countdowns only advance while a player is in range; look again in a second.
+            spawner.counting = false;
+            return TICK_INTERVAL;
         }
+        spawner.counting = true;
 
-        toRemove.forEach(k -> { countdowns.remove(k); locations.remove(k); paramsCache.remove(k); });
+        if (sparkEnabled) sparks.add(bucket, loc);
+
+        int remaining = spawner.countdown - elapsed;
+        if (remaining > 0) { spawner.countdown = remaining; return wakeIn(remaining, playerRange); }
+
+        // Cheap while the chunk is loaded, and catches spawners removed by explosions or other plugins.
+        if (!isSpawnerBlock(world, loc)) { toRemove.add(spawner); return -1; }
+        if (spawnQueue.shouldPause()) {
+            // Hold the countdown at zero and fire as soon as the queue has room.
+            spawner.countdown = 0;
+            return TICK_INTERVAL;
+        }
+        spawnMobs(spawner, params, data);
+
+        int delay = params.blockWins(data) ? params.blockDelay : data.getDelay();
+        if (delay <= 0) delay = 200;
+        spawner.countdown = delay;
+        return wakeIn(delay, playerRange);
     }
 
     /**
-     * Reads all PDC values from the block state once and stores them in
-     * {@link #paramsCache}.  Returns {@code null} if the block is not a managed
+     * Ticks until a counting spawner is evaluated again in wheel mode: when
+     * its countdown runs out, but at least once a second while it needs a
+     * player in range or shows sparks, as in interval mode.
+     */
+    private int wakeIn(int countdown, int playerRange) {
+        return playerRange > 0 || sparkEnabled ? Math.min(countdown, TICK_INTERVAL) : countdown;
+    }
+
+    /** Countdown a wheel-scheduled spawner has left right now. */
+    private int countdownLeft(TickedSpawner spawner) {
+        return (int) (spawner.countdown - (currentTick - spawner.lastTick));
+    }
+
+    /**
+     * Players near the given chunk.  The index is rebuilt at most once per
+     * server tick and the per-chunk lookup is shared by consecutive spawners
+     * in the same chunk.
+     */
+    private PlayerIndex.Nearby nearbyPlayers(SpawnerRegistry.ChunkBucket bucket, int range) {
+        if (indexTick != currentTick) {
+            playerIndex.rebuild();
+            indexTick = currentTick;
+            nearbyBucket = null;
+        }
+        if (nearbyBucket != bucket || nearby.range < range) {
+            playerIndex.collectNearChunk(bucket.world, bucket.chunkX(), bucket.chunkZ(),
+                    Math.max(range, widestPlayerRange), nearby);
+            nearbyBucket = bucket;
+        }
+        return nearby;
+    }
+
+    /**
+     * Puts a spawner whose chunk is loaded into the wheel, resuming its
+     * countdown.  Its first evaluation, within a second, decides how long it
+     * may sleep after that.
+     */
+    private void schedule(TickedSpawner spawner) {
+        spawner.lastTick = currentTick;
+        wheel.schedule(spawner, currentTick + Math.max(1, Math.min(spawner.countdown, TICK_INTERVAL)));
+    }
+
+    /** Takes a spawner out of the wheel, keeping the countdown it had left. */
+    private void freeze(TickedSpawner spawner) {
+        if (!spawner.scheduled) return;
+        if (spawner.counting) spawner.countdown = Math.max(0, countdownLeft(spawner));
+        wheel.cancel(spawner);
+    }
+
+    private void remove(TickedSpawner spawner) {
+        spawner.removed = true;
+        if (wheel != null) wheel.cancel(spawner);
+        registry.remove(spawner);
+    }
+
+    private static boolean isSpawnerBlock(World world, Location loc) {
+        return world.getBlockAt(loc).getType() == org.bukkit.Material.SPAWNER;
+    }
+
+    /**
+     * Reads all PDC values from the block state once and caches them on the
+     * registered spawner.  Returns {@code null} if the block is not a managed
      * spawner (no {@code spawner_id} PDC key).
      */
-    private SpawnParams readAndCacheParams(String key, Block block) {
+    private SpawnParams readAndCacheParams(TickedSpawner spawner, Block block) {
         BlockState state = block.getState();
         if (!(state instanceof CreatureSpawner)) return null;
         CreatureSpawner cs = (CreatureSpawner) state;
@@ -191,102 +723,297 @@ public class SpawnerTickManager {
         Integer maxAmount = cs.getPersistentDataContainer().get(plugin.getMaxAmountKey(),      PersistentDataType.INTEGER);
         Double  minScale  = cs.getPersistentDataContainer().get(plugin.getMinScaleKey(),       PersistentDataType.DOUBLE);
         Double  maxScale  = cs.getPersistentDataContainer().get(plugin.getMaxScaleKey(),       PersistentDataType.DOUBLE);
+        Integer version   = cs.getPersistentDataContainer().get(plugin.getDefinitionVersionKey(), PersistentDataType.INTEGER);
+        boolean override  = cs.getPersistentDataContainer().has(plugin.getOverrideKey(), PersistentDataType.BYTE);
+        Integer stackSize = cs.getPersistentDataContainer().get(plugin.getStackSizeKey(),    PersistentDataType.INTEGER);
 
         SpawnParams params = new SpawnParams(
                 spawnerId, mmType,
                 minRadius, maxRadius,
                 minAmount, maxAmount,
                 minScale,  maxScale,
-                cs.getRequiredPlayerRange()
+                cs.getRequiredPlayerRange(), cs.getMinSpawnDelay(),
+                override, version
         );
-        paramsCache.put(key, params);
+        spawner.params = params;
+        spawner.stackSize = stackSize != null ? Math.max(1, stackSize) : 1;
+        if (rewriteStale) queueIfStale(spawner, params);
         return params;
     }
 
-    private void spawnMobs(Location loc, SpawnParams params, SpawnerData data) {
-        String mmType = params.mmType;
+    /** The shared definition of a spawner, re-resolved only after a config reload. */
+    private SpawnerData definition(SpawnParams params) {
+        SpawnerConfig config = plugin.getSpawnerConfig();
+        if (params.definitionGeneration != config.getGeneration()) {
+            params.definition = config.getSpawner(params.spawnerId);
+            params.definitionGeneration = config.getGeneration();
+        }
+        return params.definition;
+    }
 
-        int minRadius = params.pdcMinRadius != null ? params.pdcMinRadius : (data != null ? data.getMinRadius() : 0);
-        int maxRadius = params.pdcMaxRadius != null ? params.pdcMaxRadius : (data != null ? data.getMaxRadius() : 0);
-        int minAmount = params.pdcMinAmount != null ? params.pdcMinAmount : (data != null ? data.getMinAmount() : 1);
-        int maxAmount = params.pdcMaxAmount != null ? params.pdcMaxAmount : (data != null ? data.getMaxAmount() : 1);
-        double minScale = params.pdcMinScale != null ? params.pdcMinScale : (data != null ? data.getMinScale() : 1.0);
-        double maxScale = params.pdcMaxScale != null ? params.pdcMaxScale : (data != null ? data.getMaxScale() : 1.0);
+    // ---- Stale PDC rewrite ----
+
+    private void queueIfStale(TickedSpawner spawner, SpawnParams params) {
+        if (params.override || params.rewriteQueued) return;
+        SpawnerData data = definition(params);
+        if (data == null || Integer.valueOf(data.getVersion()).equals(params.definitionVersion)) return;
+        params.rewriteQueued = true;
+        staleQueue.add(spawner);
+    }
+
+    /** Rewrites a few stale spawner blocks per tick from their current definition. */
+    private void rewriteStaleSpawners() {
+        for (int i = 0; i < STALE_REWRITES_PER_TICK && !staleQueue.isEmpty(); i++) {
+            TickedSpawner spawner = staleQueue.poll();
+            SpawnParams params = spawner.params;
+            if (params == null) continue; // re-registered; re-checked when its params are read again
+            params.rewriteQueued = false;
+            SpawnerData data = definition(params);
+            if (spawner.removed || !spawner.bucket.loaded || data == null) continue;
+            BlockState state = spawner.location.getWorld().getBlockAt(spawner.location).getState();
+            if (!(state instanceof CreatureSpawner)) continue;
+            plugin.writeSpawnerSettings((CreatureSpawner) state, data);
+            state.update(true, false);
+            params.definitionVersion = data.getVersion();
+        }
+    }
+
+    private void spawnMobs(TickedSpawner spawner, SpawnParams params, SpawnerData data) {
+        Location loc = spawner.location;
+        boolean block = params.blockWins(data);
+        String mmType = block && params.mmType != null ? params.mmType : (data != null ? data.getMythicMobType() : null);
+
+        int minRadius = block && params.pdcMinRadius != null ? params.pdcMinRadius : (data != null ? data.getMinRadius() : 0);
+        int maxRadius = block && params.pdcMaxRadius != null ? params.pdcMaxRadius : (data != null ? data.getMaxRadius() : 0);
+        int minAmount = block && params.pdcMinAmount != null ? params.pdcMinAmount : (data != null ? data.getMinAmount() : 1);
+        int maxAmount = block && params.pdcMaxAmount != null ? params.pdcMaxAmount : (data != null ? data.getMaxAmount() : 1);
+        double minScale = block && params.pdcMinScale != null ? params.pdcMinScale : (data != null ? data.getMinScale() : 1.0);
+        double maxScale = block && params.pdcMaxScale != null ? params.pdcMaxScale : (data != null ? data.getMaxScale() : 1.0);
 
         if (minAmount < 1) minAmount = 1;
         if (maxAmount < minAmount) maxAmount = minAmount;
 
-        // Anti-lag: skip spawn when too many entities already crowd the area
+        int spawnCount = (maxAmount > minAmount)
+                ? minAmount + random.nextInt(maxAmount - minAmount + 1)
+                : minAmount;
+        // A stack fires once for all of its spawners, as a single queued cycle.
+        spawnCount *= spawner.stackSize;
+
+        if (data != null && data.isVirtual()) {
+            // No entities at all: the loot goes straight into the spawner's storage.
+            storeVirtualLoot(spawner, data, spawnCount);
+            return;
+        }
+
+        // Anti-lag: skip spawn when too many entities already crowd the area (positions cached per chunk for a second)
         if (maxNearbyEntities > 0) {
-            double checkRadius = Math.max(maxRadius, 8);
-            int nearby = loc.getWorld().getNearbyEntities(loc, checkRadius, checkRadius, checkRadius,
-                    e -> e instanceof LivingEntity).size();
+            int checkRadius = Math.max(maxRadius, 8);
+            int nearby = chunkEntities.livingAround(loc.getWorld(), loc.getBlockX(), loc.getBlockY(), loc.getBlockZ(),
+                    checkRadius, currentTick);
             if (nearby >= maxNearbyEntities) return;
         }
 
-        int spawnCount = (maxAmount > minAmount)
-                ? minAmount + random.nextInt(maxAmount - minAmount + 1)
-                : minAmount;
+        int maxAlive = maxAlive(spawner, data);
+        if (maxAlive > 0) {
+            // Every queued cycle counts, not just the newest: several can wait while the queue has room.
+            int room = maxAlive - spawner.alive - spawner.queuedMobs;
+            if (room <= 0) return;
+            spawnCount = Math.min(spawnCount, room);
+        }
 
-        for (int i = 0; i < spawnCount; i++) {
-            final Location spawnLoc = getSpawnLocation(loc, minRadius, maxRadius);
-            final double finalMinScale = minScale;
-            final double finalMaxScale = maxScale;
-
-            spawnQueue.add(() -> {
-                World spawnWorld = spawnLoc.getWorld();
-                if (spawnWorld == null || !spawnLoc.getChunk().isLoaded()) return;
-                if (mmType != null && !mmType.isEmpty() && plugin.isMythicMobsEnabled()) {
-                    try {
-                        Entity entity = io.lumine.mythic.bukkit.MythicBukkit.inst().getMobManager()
-                                .spawnMob(mmType, spawnLoc).getEntity().getBukkitEntity();
-                        applyScale(entity, finalMinScale, finalMaxScale);
-                        plugin.trackMythicSpawn();
-                    } catch (Exception e) {
-                        plugin.getLogger().warning("Failed to spawn MythicMob '" + mmType + "': " + e.getMessage());
-                    }
-                } else if (data != null && !data.isMythicMob()) {
-                    try {
-                        Entity entity = spawnWorld.spawnEntity(spawnLoc, data.getEntityType());
-                        applyScale(entity, finalMinScale, finalMaxScale);
-                        plugin.trackVanillaSpawn();
-                    } catch (Exception e) {
-                        plugin.getLogger().warning("Failed to spawn vanilla mob: " + e.getMessage());
-                    }
-                }
-            });
+        spawnQueue.offer(spawnQueue.obtain().set(spawner, loc, data, mmType,
+                minRadius, maxRadius, minScale, maxScale, spawnCount), System.nanoTime());
+    }
+
+    // ---- Virtual spawners ----
+
+    /** Rolls the loot of {@code mobs} kills into a virtual spawner's storage. */
+    private void storeVirtualLoot(TickedSpawner spawner, SpawnerData data, int mobs) {
+        VirtualStorage storage = loadVirtualStorage(spawner);
+        if (storage == null) return;
+        Player killer = null;
+        if (virtualPlayerKills) {
+            // The player whose presence activated the spawner; same range as the activation check.
+            Location loc = spawner.location;
+            int range = data.getRequiredPlayerRange() > 0 ? data.getRequiredPlayerRange() : DEFAULT_KILLER_RANGE;
+            killer = nearbyPlayers(spawner.bucket, range).nearest(loc.getX(), loc.getY(), loc.getZ(), range);
         }
+        virtualLoot.roll(data.getEntityType(), spawner.location, mobs, storage, virtualMaxItems, virtualMaxXp, killer);
+        queueVirtualWrite(spawner);
     }
 
-    private Location getSpawnLocation(Location center, int minRadius, int maxRadius) {
-        if (maxRadius <= 0) return center.clone().add(0.5, 0, 0.5);
-        int radius = (maxRadius > minRadius)
-                ? minRadius + random.nextInt(maxRadius - minRadius + 1)
-                : minRadius;
-        double angle    = random.nextDouble() * 2 * Math.PI;
-        double distance = Math.sqrt(random.nextDouble()) * radius;
-        return center.clone().add(Math.cos(angle) * distance + 0.5, 0, Math.sin(angle) * distance + 0.5);
+    /**
+     * The loot stored by the virtual spawner at {@code loc}, or {@code null}
+     * if no spawner is registered there or its chunk is not loaded.  Call
+     * {@link #virtualStorageChanged} after taking loot out.
+     */
+    VirtualStorage getVirtualStorage(Location loc) {
+        TickedSpawner spawner = registry.get(loc);
+        return spawner != null && spawner.bucket.loaded ? loadVirtualStorage(spawner) : null;
     }
 
-    private void applyScale(Entity entity, double minScale, double maxScale) {
-        if (Math.abs(minScale - 1.0) < 1e-9 && Math.abs(maxScale - 1.0) < 1e-9) return;
-        if (!(entity instanceof LivingEntity)) return;
-        double scale = (maxScale > minScale)
-                ? minScale + random.nextDouble() * (maxScale - minScale)
-                : minScale;
+    /** Schedules the storage of the spawner at {@code loc} to be written back to its block. */
+    void virtualStorageChanged(Location loc) {
+        TickedSpawner spawner = registry.get(loc);
+        if (spawner != null) queueVirtualWrite(spawner);
+    }
+
+    /** Reads a spawner's storage from its block on first use; the chunk must be loaded. */
+    private VirtualStorage loadVirtualStorage(TickedSpawner spawner) {
+        if (spawner.virtual != null) return spawner.virtual;
+        BlockState state = spawner.location.getWorld().getBlockAt(spawner.location).getState();
+        if (!(state instanceof CreatureSpawner)) return null;
+        PersistentDataContainer pdc = ((CreatureSpawner) state).getPersistentDataContainer();
+        Integer xp = pdc.get(plugin.getVirtualXpKey(), PersistentDataType.INTEGER);
         try {
-            org.bukkit.attribute.Attributable attributable = (org.bukkit.attribute.Attributable) entity;
-            org.bukkit.attribute.Attribute scaleAttr = org.bukkit.attribute.Attribute.valueOf("GENERIC_SCALE");
-            org.bukkit.attribute.AttributeInstance attr = attributable.getAttribute(scaleAttr);
-            if (attr != null) {
-                attr.setBaseValue(scale);
+            spawner.virtual = VirtualStorage.read(pdc.get(plugin.getVirtualLootKey(), PersistentDataType.BYTE_ARRAY),
+                    xp != null ? xp : 0);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Discarding unreadable virtual loot of the spawner at "
+                    + spawner.location.getBlockX() + ", " + spawner.location.getBlockY() + ", "
+                    + spawner.location.getBlockZ(), e);
+            spawner.virtual = new VirtualStorage();
+        }
+        return spawner.virtual;
+    }
+
+    private void queueVirtualWrite(TickedSpawner spawner) {
+        VirtualStorage storage = spawner.virtual;
+        if (storage == null || !storage.dirty || storage.queued) return;
+        storage.queued = true;
+        virtualWrites.add(spawner);
+    }
+
+    /** Writes every changed storage back to its block.  Storages change far more often than they are written. */
+    private void writeVirtualStorages() {
+        for (TickedSpawner spawner : virtualWrites) writeVirtualStorage(spawner);
+        virtualWrites.clear();
+    }
+
+    private void writeVirtualStorage(TickedSpawner spawner) {
+        VirtualStorage storage = spawner.virtual;
+        if (storage == null) return;
+        storage.queued = false;
+        if (!storage.dirty || spawner.removed || !spawner.bucket.loaded) return;
+        BlockState state = spawner.location.getWorld().getBlockAt(spawner.location).getState();
+        if (!(state instanceof CreatureSpawner)) return;
+        PersistentDataContainer pdc = ((CreatureSpawner) state).getPersistentDataContainer();
+        try {
+            pdc.set(plugin.getVirtualLootKey(), PersistentDataType.BYTE_ARRAY, storage.serializeItems());
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to save the virtual loot of the spawner at "
+                    + spawner.location.getBlockX() + ", " + spawner.location.getBlockY() + ", "
+                    + spawner.location.getBlockZ(), e);
+            return;
+        }
+        pdc.set(plugin.getVirtualXpKey(), PersistentDataType.INTEGER, storage.xp());
+        state.update(true, false);
+        storage.dirty = false;
+    }
+
+    /** The {@code max-alive} limit of a spawner, per spawner in its stack; 0 if unlimited. */
+    private static int maxAlive(TickedSpawner spawner, SpawnerData data) {
+        int maxAlive = data != null ? data.getMaxAlive() : 0;
+        return maxAlive > 0 ? maxAlive * spawner.stackSize : 0;
+    }
+
+    /**
+     * Spawns queued mobs, at most {@code max-spawns-per-tick} per server tick
+     * and within the spawn-queue time budget.
+     */
+    private void drainSpawnQueue() {
+        long start = System.nanoTime();
+        for (int spawned = 0; spawned < maxSpawnsPerTick; spawned++) {
+            SpawnRequest request = spawnQueue.peek();
+            if (request == null) return;
+            spawnQueue.consume(spawnOne(request));
+            if (spawnBudgetNanos > 0 && System.nanoTime() - start >= spawnBudgetNanos) return;
+        }
+    }
+
+    /**
+     * Spawns the next mob of the head request.  In aggregate mode the rest of
+     * the request is folded into the same entity in one go.
+     *
+     * @return how many mobs of the request were dealt with (always at least one)
+     */
+    private int spawnOne(SpawnRequest request) {
+        Location spawnLoc = placement.around(request.center, request.minRadius, request.maxRadius);
+        World spawnWorld = spawnLoc.getWorld();
+        // Location#getChunk() would load the chunk; only spawn where it is already loaded.
+        if (spawnWorld == null
+                || !spawnWorld.isChunkLoaded(spawnLoc.getBlockX() >> 4, spawnLoc.getBlockZ() >> 4)) return 1;
+        SpawnerData data = request.data;
+        TickedSpawner source = request.source;
+        int maxAlive = source != null ? maxAlive(source, data) : 0;
+        // Mobs of this cycle may have been outlived by earlier ones while it waited in the queue.
+        if (maxAlive > 0 && source.alive >= maxAlive) return 1;
+
+        boolean aggregate = data != null && data.isAggregate() && source != null && !source.removed;
+        int batch = request.remaining;
+        if (maxAlive > 0) batch = Math.min(batch, maxAlive - source.alive);
+        if (aggregate) {
+            int folded = aggregator.absorb(source, data, spawnLoc, batch);
+            if (folded > 0) {
+                spawnedEntities.resized(source.aggregate);
+                return folded;
             }
-        } catch (Exception e) {
-            // GENERIC_SCALE not available on this server version – silently ignore
         }
+
+        Entity entity = spawnMob(data, request.mmType, spawnLoc, request.minScale, request.maxScale);
+        if (!(entity instanceof LivingEntity)) return 1;
+        int spawned = 1;
+        if (aggregate) {
+            LivingEntity living = (LivingEntity) entity;
+            aggregator.start(living, data, 1);
+            source.aggregate = living;
+            if (batch > 1) spawned += aggregator.absorb(source, data, spawnLoc, batch - 1);
+        }
+        chunkEntities.added(spawnWorld, spawnLoc);
+        // Per-spawner tracking only serves max-alive; uncapped spawners do not tag or track their mobs.
+        if (maxAlive > 0 && !source.removed) spawnedEntities.trackSpawned(entity, source);
+        return spawned;
     }
 
-    private static String locKey(Location loc) {
-        return loc.getWorld().getName() + "," + loc.getBlockX() + "," + loc.getBlockY() + "," + loc.getBlockZ();
+    /** Spawns one mob at {@code loc}; returns {@code null} if it could not be spawned. */
+    private Entity spawnMob(SpawnerData data, String mmType, Location loc, double minScale, double maxScale) {
+        Entity entity = null;
+        if (mmType != null && !mmType.isEmpty() && plugin.isMythicMobsEnabled()) {
+            try {
+                entity = io.lumine.mythic.bukkit.MythicBukkit.inst().getMobManager()
+                        .spawnMob(mmType, loc).getEntity().getBukkitEntity();
+                applyScale(entity, minScale, maxScale);
+                plugin.trackMythicSpawn();
+            } catch (Exception e) {
+                plugin.getLogger().warning("Failed to spawn MythicMob '" + mmType + "': " + e.getMessage());
+            }
+        } else if (data != null && !data.isMythicMob()) {
+            try {
+                entity = loc.getWorld().spawnEntity(loc, data.getEntityType());
+                applyScale(entity, minScale, maxScale);
+                plugin.trackVanillaSpawn();
+            } catch (Exception e) {
+                plugin.getLogger().warning("Failed to spawn vanilla mob: " + e.getMessage());
+            }
+        }
+        return entity;
+    }
+
+    private void applyScale(Entity entity, double minScale, double maxScale) {
+        if (SCALE_ATTRIBUTE == null || !SpawnPlacement.scales(minScale, maxScale)) return;
+        if (!(entity instanceof LivingEntity)) return;
+        double scale = placement.scale(minScale, maxScale);
+        org.bukkit.attribute.AttributeInstance attr = ((LivingEntity) entity).getAttribute(SCALE_ATTRIBUTE);
+        if (attr != null) {
+            attr.setBaseValue(scale);
+        }
+    }
+
+    private static org.bukkit.attribute.Attribute resolveScaleAttribute() {
+        try {
+            return org.bukkit.attribute.Attribute.valueOf("GENERIC_SCALE");
+        } catch (Exception e) {
+            return null; // GENERIC_SCALE not available on this server version
+        }
     }
 }
@@ -0,0 +1,197 @@
+package com.wynvers.spawners;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.logging.Logger;
+
+/**
+ * Local SQLite backend ({@code plugins/WSpawners/spawners.db}).  Runs in WAL
+ * mode so reader connections never block the writer.
+ */
+final class SqliteSpawnerStorage extends JdbcSpawnerStorage {
+
+    /** Current schema version, stored in {@code PRAGMA user_version}. */
+    private static final int SCHEMA_VERSION = 6;
+    private static final int CACHE_SIZE_KIB = 8192;
+    private static final long MMAP_SIZE_BYTES = 64L * 1024 * 1024;
+    private static final int BUSY_TIMEOUT_MS = 5000;
+
+    private final String url;
+
+    SqliteSpawnerStorage(File dataFolder, Logger logger) {
+        super(logger);
+        if (!dataFolder.exists()) dataFolder.mkdirs();
+        this.url = "jdbc:sqlite:" + new File(dataFolder, "spawners.db").getAbsolutePath();
+    }
+
+    @Override
+    public String describe() {
+        return "SQLite";
+    }
+
+    /**
+     * Opens a connection with the per-connection pragmas applied.  With WAL,
+     * synchronous=NORMAL only fsyncs at checkpoints and stays safe against
+     * corruption.
+     */
+    @Override
+    protected Connection openConnection(boolean reader) throws SQLException {
+        Connection conn = DriverManager.getConnection(url);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA journal_mode = WAL");
+            stmt.execute("PRAGMA synchronous = NORMAL");
+            stmt.execute("PRAGMA cache_size = -" + CACHE_SIZE_KIB);
+            stmt.execute("PRAGMA mmap_size = " + MMAP_SIZE_BYTES);
+            stmt.execute("PRAGMA temp_store = MEMORY");
+            stmt.execute("PRAGMA busy_timeout = " + BUSY_TIMEOUT_MS);
+            if (reader) stmt.execute("PRAGMA query_only = ON");
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+        return conn;
+    }
+
+    @Override
+    protected String upsertClause() {
+        return "ON CONFLICT(world, x, y, z) DO UPDATE SET";
+    }
+
+    @Override
+    protected String upsertValue(String column) {
+        return "excluded." + column;
+    }
+
+    @Override
+    protected String nameMatch() {
+        return "player_name = ? COLLATE NOCASE";
+    }
+
+    // ---- Schema migrations ----
+
+    /**
+     * Brings the schema up to {@link #SCHEMA_VERSION}, tracked in
+     * {@code PRAGMA user_version}.  Each step runs in its own transaction;
+     * steps are idempotent so databases created before versioning (version 0)
+     * upgrade cleanly.
+     */
+    @Override
+    protected void migrate(Connection connection) throws SQLException {
+        int version = userVersion(connection);
+        if (version > SCHEMA_VERSION) {
+            logger.warning("spawners.db has schema version " + version + ", newer than this plugin supports ("
+                    + SCHEMA_VERSION + "). Continuing without migrating.");
+            return;
+        }
+        for (int target = version + 1; target <= SCHEMA_VERSION; target++) {
+            connection.setAutoCommit(false);
+            try {
+                applyMigration(connection, target);
+                try (Statement stmt = connection.createStatement()) {
+                    stmt.execute("PRAGMA user_version = " + target);
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+            logger.info("Migrated spawners.db to schema version " + target + ".");
+        }
+    }
+
+    private void applyMigration(Connection connection, int version) throws SQLException {
+        switch (version) {
+            case 1:
+                createTable(connection);
+                break;
+            case 2:
+                addColumnIfMissing(connection, "countdown", "INTEGER");
+                break;
+            case 3:
+                try (Statement stmt = connection.createStatement()) {
+                    stmt.executeUpdate("CREATE INDEX IF NOT EXISTS idx_player_spawners_uuid"
+                            + " ON player_spawners (player_uuid)");
+                    stmt.executeUpdate("CREATE INDEX IF NOT EXISTS idx_player_spawners_name"
+                            + " ON player_spawners (player_name COLLATE NOCASE)");
+                }
+                break;
+            case 4:
+                // Owner + position indexes serve both the owner lookups and keyset pagination.
+                try (Statement stmt = connection.createStatement()) {
+                    stmt.executeUpdate("DROP INDEX IF EXISTS idx_player_spawners_uuid");
+                    stmt.executeUpdate("DROP INDEX IF EXISTS idx_player_spawners_name");
+                    stmt.executeUpdate("CREATE INDEX IF NOT EXISTS idx_player_spawners_owner_pos"
+                            + " ON player_spawners (player_uuid, world, x, y, z)");
+                    stmt.executeUpdate("CREATE INDEX IF NOT EXISTS idx_player_spawners_name_pos"
+                            + " ON player_spawners (player_name COLLATE NOCASE, world, x, y, z)");
+                }
+                break;
+            case 5:
+                addColumnIfMissing(connection, "chunk_x", "INTEGER");
+                addColumnIfMissing(connection, "chunk_z", "INTEGER");
+                try (Statement stmt = connection.createStatement()) {
+                    stmt.executeUpdate("UPDATE player_spawners SET chunk_x = x >> 4, chunk_z = z >> 4");
+                    stmt.executeUpdate("CREATE INDEX IF NOT EXISTS idx_player_spawners_chunk"
+                            + " ON player_spawners (world, chunk_x, chunk_z)");
+                }
+                break;
+            case 6:
+                addColumnIfMissing(connection, "stack_size", "INTEGER NOT NULL DEFAULT 1");
+                break;
+            default:
+                throw new SQLException("Unknown schema version " + version);
+        }
+    }
+
+    private int userVersion(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private void createTable(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate(
+                "CREATE TABLE IF NOT EXISTS player_spawners ("
+                + " id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + " player_uuid TEXT NOT NULL,"
+                + " player_name TEXT NOT NULL,"
+                + " spawner_id TEXT NOT NULL,"
+                + " world TEXT NOT NULL,"
+                + " x INTEGER NOT NULL,"
+                + " y INTEGER NOT NULL,"
+                + " z INTEGER NOT NULL,"
+                + " entity_type TEXT,"
+                + " mythic_mob_type TEXT,"
+                + " delay INTEGER,"
+                + " required_player_range INTEGER,"
+                + " min_radius INTEGER,"
+                + " max_radius INTEGER,"
+                + " min_amount INTEGER,"
+                + " max_amount INTEGER,"
+                + " placed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,"
+                + " UNIQUE(world, x, y, z)"
+                + ")"
+            );
+        }
+    }
+
+    private void addColumnIfMissing(Connection connection, String column, String type) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA table_info(player_spawners)")) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("name"))) return;
+            }
+        }
+        try (Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate("ALTER TABLE player_spawners ADD COLUMN " + column + " " + type);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.wynvers.spawners;
+
+import org.bukkit.Location;
+import org.bukkit.entity.LivingEntity;
+
+/**
+ * One registered spawner in the {@link SpawnerRegistry}.  Holds everything the
+ * tick loop needs so a pass never has to hash a location again.
+ */
+final class TickedSpawner {
+
+    final long key;
+    final Location location;
+    final SpawnerRegistry.ChunkBucket bucket;
+
+    int countdown;
+    SpawnerTickManager.SpawnParams params; // null → re-read from the block state
+    int validatedGeneration = -1;          // bucket load generation the block was last checked in
+    long lastTick;                         // server tick of the last evaluation
+    boolean counting;                      // a player was in range at the last evaluation
+    boolean removed;                       // unregistered; skip if still waiting in a carry-over queue
+    SpawnRequest pendingRequest;           // newest cycle still waiting in the spawn queue, if any
+    int queuedMobs;                        // mobs of all its cycles still waiting in the spawn queue
+    int alive;                             // tracked living mobs from this spawner (max-alive only)
+    int stackSize = 1;                     // spawners merged into this block; read with the params
+    LivingEntity aggregate;                // entity new mobs are folded into (aggregate mode only)
+    VirtualStorage virtual;                // collected loot, loaded from the block on first use (virtual mode only)
+
+    // TimingWheel links, only used in wheel tick mode
+    long dueTick;
+    boolean scheduled;
+    TickedSpawner wheelPrev;
+    TickedSpawner wheelNext;
+
+    TickedSpawner(long key, Location location, SpawnerRegistry.ChunkBucket bucket) {
+        this.key      = key;
+        this.location = location;
+        this.bucket   = bucket;
+    }
+}
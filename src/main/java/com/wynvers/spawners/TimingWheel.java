@@ -0,0 +1,95 @@
+package com.wynvers.spawners;
+
+import java.util.Collection;
+
+/**
+ * Hashed timing wheel keyed on server tick.
+ *
+ * <p>Each slot holds an intrusive doubly linked list of {@link TickedSpawner}s,
+ * so scheduling and cancelling are O(1) and advancing one tick only walks the
+ * spawners hashed to that slot.  Delays longer than the wheel simply stay in
+ * their slot for another lap; with the default 512 slots that is rare for
+ * typical spawner delays.</p>
+ */
+final class TimingWheel {
+
+    private static final int SLOTS = 512;
+    private static final int MASK  = SLOTS - 1;
+
+    private final TickedSpawner[] slots = new TickedSpawner[SLOTS];
+    private long lastTick;
+    private int size;
+
+    TimingWheel(long currentTick) {
+        this.lastTick = currentTick;
+    }
+
+    /**
+     * Schedules (or reschedules) a spawner.  Due ticks that have already been
+     * advanced past are moved to the next tick.
+     */
+    void schedule(TickedSpawner spawner, long dueTick) {
+        if (spawner.scheduled) cancel(spawner);
+        if (dueTick <= lastTick) dueTick = lastTick + 1;
+        spawner.dueTick = dueTick;
+        int slot = (int) (dueTick & MASK);
+        TickedSpawner head = slots[slot];
+        spawner.wheelPrev = null;
+        spawner.wheelNext = head;
+        if (head != null) head.wheelPrev = spawner;
+        slots[slot] = spawner;
+        spawner.scheduled = true;
+        size++;
+    }
+
+    void cancel(TickedSpawner spawner) {
+        if (!spawner.scheduled) return;
+        if (spawner.wheelPrev != null) spawner.wheelPrev.wheelNext = spawner.wheelNext;
+        else slots[(int) (spawner.dueTick & MASK)] = spawner.wheelNext;
+        if (spawner.wheelNext != null) spawner.wheelNext.wheelPrev = spawner.wheelPrev;
+        spawner.wheelPrev = null;
+        spawner.wheelNext = null;
+        spawner.scheduled = false;
+        size--;
+    }
+
+    /**
+     * Advances the wheel to {@code tick}, unlinking every spawner due at or
+     * before it into {@code due}.
+     */
+    void advance(long tick, Collection<TickedSpawner> due) {
+        // Never walk more than one lap, even after a long stall.
+        long from = Math.max(lastTick + 1, tick - MASK);
+        for (long t = from; t <= tick; t++) {
+            TickedSpawner spawner = slots[(int) (t & MASK)];
+            while (spawner != null) {
+                TickedSpawner next = spawner.wheelNext;
+                if (spawner.dueTick <= tick) {
+                    cancel(spawner);
+                    due.add(spawner);
+                }
+                spawner = next;
+            }
+        }
+        if (tick > lastTick) lastTick = tick;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        for (int i = 0; i < SLOTS; i++) {
+            TickedSpawner spawner = slots[i];
+            while (spawner != null) {
+                TickedSpawner next = spawner.wheelNext;
+                spawner.wheelPrev = null;
+                spawner.wheelNext = null;
+                spawner.scheduled = false;
+                spawner = next;
+            }
+            slots[i] = null;
+        }
+        size = 0;
+    }
+}
@@ -0,0 +1,122 @@
+package com.wynvers.spawners;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Animals;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.entity.Monster;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.loot.LootContext;
+import org.bukkit.loot.LootTable;
+import org.bukkit.loot.Lootable;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Rolls mob loot for virtual spawners without spawning the mob.
+ *
+ * <p>Each entity type is resolved once: an entity is created but never added
+ * to a world, and its loot table and experience reward are cached with it.
+ * Every roll after that evaluates the cached table against the template, so a
+ * virtual cycle costs a loot-table evaluation and nothing else.  Experience
+ * follows the vanilla base rewards (5 for monsters, 1-3 for animals).  Main
+ * thread only.</p>
+ */
+final class VirtualLoot {
+
+    private static final class Source {
+        static final Source NONE = new Source(null, null, 0, 0);
+
+        final LootTable table; // null → no item drops
+        final Entity template;
+        final int minXp, maxXp;
+
+        Source(LootTable table, Entity template, int minXp, int maxXp) {
+            this.table    = table;
+            this.template = template;
+            this.minXp    = minXp;
+            this.maxXp    = maxXp;
+        }
+    }
+
+    private final Map<EntityType, Source> sources = new EnumMap<>(EntityType.class);
+    private final Random random;
+    private final Logger logger;
+
+    VirtualLoot(Random random, Logger logger) {
+        this.random = random;
+        this.logger = logger;
+    }
+
+    /**
+     * Rolls the drops of {@code mobs} kills of {@code type} at {@code location}
+     * into {@code storage}, stopping early once it is full.
+     *
+     * @param killer player credited with the kills, or {@code null}; drops that
+     *               vanilla only gives for player kills (blaze rods, wither
+     *               skeleton skulls, ...) need one
+     */
+    void roll(EntityType type, Location location, int mobs, VirtualStorage storage, int maxItems, int maxXp,
+              HumanEntity killer) {
+        Source source = source(type, location);
+        if (source == Source.NONE) return;
+        LootContext context = null;
+        if (source.table != null) {
+            LootContext.Builder builder = new LootContext.Builder(location).lootedEntity(source.template);
+            if (killer != null) builder.killer(killer);
+            context = builder.build();
+        }
+        for (int i = 0; i < mobs && !storage.isFull(maxItems, maxXp); i++) {
+            if (context != null) {
+                try {
+                    for (ItemStack drop : source.table.populateLoot(random, context)) {
+                        if (drop != null) storage.add(drop, maxItems);
+                    }
+                } catch (RuntimeException e) {
+                    logger.log(Level.WARNING, "Failed to roll the loot of " + type + "; virtual spawners of this"
+                            + " type only collect experience from now on", e);
+                    sources.put(type, source = new Source(null, source.template, source.minXp, source.maxXp));
+                    context = null;
+                }
+            }
+            if (source.maxXp > 0) {
+                storage.addXp(source.minXp + random.nextInt(source.maxXp - source.minXp + 1), maxXp);
+            }
+        }
+    }
+
+    private Source source(EntityType type, Location location) {
+        Source source = sources.get(type);
+        if (source == null) {
+            source = resolve(type, location);
+            sources.put(type, source);
+        }
+        return source;
+    }
+
+    private Source resolve(EntityType type, Location location) {
+        Class<? extends Entity> entityClass = type.getEntityClass();
+        if (entityClass == null || !type.isAlive() || !type.isSpawnable()) return Source.NONE;
+        Entity template;
+        try {
+            template = location.getWorld().createEntity(location, entityClass);
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Cannot create a " + type + " for virtual loot", e);
+            return Source.NONE;
+        }
+        LootTable table = template instanceof Lootable ? ((Lootable) template).getLootTable() : null;
+        if (template instanceof Monster) return new Source(table, template, 5, 5);
+        if (template instanceof Animals) return new Source(table, template, 1, 3);
+        return table != null ? new Source(table, template, 0, 0) : Source.NONE;
+    }
+
+    /** Drops the cached templates, e.g. because the world they were created in unloaded. */
+    void clear() {
+        sources.clear();
+    }
+}
@@ -0,0 +1,157 @@
+package com.wynvers.spawners;
+
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.util.io.BukkitObjectInputStream;
+import org.bukkit.util.io.BukkitObjectOutputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loot and experience collected by a virtual spawner, waiting for a player to
+ * pick it up.
+ *
+ * <p>Items are merged into full stacks as they arrive and capped at a total
+ * item count, so a forgotten farm stops growing instead of filling memory.
+ * Storages live on their {@link TickedSpawner} and are written back to the
+ * block's PDC by {@link SpawnerTickManager} when they changed.  Main thread
+ * only.</p>
+ */
+final class VirtualStorage {
+
+    private final List<ItemStack> items = new ArrayList<>();
+    private int itemCount;
+    private int xp;
+    boolean dirty;  // changed since it was last written to the block
+    boolean queued; // waiting in the tick manager's write-back list
+
+    /**
+     * Stores as much of {@code drop} as fits under {@code maxItems}.
+     *
+     * @return the number of items stored
+     */
+    int add(ItemStack drop, int maxItems) {
+        int amount = Math.min(drop.getAmount(), maxItems - itemCount);
+        if (amount <= 0) return 0;
+        int left = amount;
+        for (ItemStack stack : items) {
+            if (left == 0) break;
+            int room = stack.getMaxStackSize() - stack.getAmount();
+            if (room <= 0 || !stack.isSimilar(drop)) continue;
+            int moved = Math.min(room, left);
+            stack.setAmount(stack.getAmount() + moved);
+            left -= moved;
+        }
+        while (left > 0) {
+            ItemStack stack = drop.clone();
+            int moved = Math.min(Math.max(1, stack.getMaxStackSize()), left);
+            stack.setAmount(moved);
+            items.add(stack);
+            left -= moved;
+        }
+        itemCount += amount;
+        dirty = true;
+        return amount;
+    }
+
+    void addXp(int amount, int maxXp) {
+        int stored = Math.min(amount, maxXp - xp);
+        if (stored <= 0) return;
+        xp += stored;
+        dirty = true;
+    }
+
+    boolean isFull(int maxItems, int maxXp) {
+        return itemCount >= maxItems && xp >= maxXp;
+    }
+
+    int itemCount() {
+        return itemCount;
+    }
+
+    int xp() {
+        return xp;
+    }
+
+    boolean isEmpty() {
+        return itemCount == 0 && xp == 0;
+    }
+
+    /**
+     * Moves the stored loot to a player.  Items that do not fit in the
+     * inventory stay stored, unless {@code dropLeftovers} is set, in which
+     * case they are dropped at {@code block}.
+     *
+     * @return the number of items handed over (dropped items included)
+     */
+    int giveTo(Player player, Block block, boolean dropLeftovers) {
+        int given = 0;
+        Iterator<ItemStack> it = items.iterator();
+        while (it.hasNext()) {
+            ItemStack stack = it.next();
+            int amount = stack.getAmount();
+            Map<Integer, ItemStack> overflow = player.getInventory().addItem(stack.clone());
+            int left = 0;
+            for (ItemStack rest : overflow.values()) {
+                if (dropLeftovers) block.getWorld().dropItemNaturally(block.getLocation(), rest);
+                else left += rest.getAmount();
+            }
+            given += amount - left;
+            if (left > 0) {
+                stack.setAmount(left);
+            } else {
+                it.remove();
+            }
+        }
+        itemCount -= given;
+        if (xp > 0) {
+            player.giveExp(xp);
+            xp = 0;
+        }
+        dirty = true;
+        return given;
+    }
+
+    // ---- Serialization ----
+
+    /** The stored items in the format read by {@link #read}. */
+    byte[] serializeItems() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (BukkitObjectOutputStream out = new BukkitObjectOutputStream(bytes)) {
+            out.writeInt(items.size());
+            for (ItemStack stack : items) out.writeObject(stack);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Rebuilds a storage from what {@link #serializeItems} wrote and the
+     * stored experience.
+     *
+     * @param data serialized items, or {@code null} for none
+     */
+    static VirtualStorage read(byte[] data, int xp) throws IOException {
+        VirtualStorage storage = new VirtualStorage();
+        storage.xp = Math.max(0, xp);
+        if (data == null || data.length == 0) return storage;
+        try (BukkitObjectInputStream in = new BukkitObjectInputStream(new ByteArrayInputStream(data))) {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                ItemStack stack = (ItemStack) in.readObject();
+                if (stack == null) continue;
+                storage.items.add(stack);
+                storage.itemCount += stack.getAmount();
+            }
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Invalid virtual spawner storage", e);
+        }
+        return storage;
+    }
+}
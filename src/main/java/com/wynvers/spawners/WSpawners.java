@@ -4,10 +4,14 @@ import org.bstats.bukkit.Metrics;
 import org.bstats.charts.SimplePie;
 import org.bstats.charts.SingleLineChart;
 import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.GameMode;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.NamespacedKey;
+import org.bukkit.World;
 import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
 import org.bukkit.block.BlockState;
 import org.bukkit.block.CreatureSpawner;
 import org.bukkit.command.Command;
@@ -15,24 +19,31 @@ import org.bukkit.command.CommandSender;
 import org.bukkit.entity.EntityType;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.Action;
 import org.bukkit.event.block.BlockBreakEvent;
 import org.bukkit.event.block.BlockPlaceEvent;
 import org.bukkit.event.entity.SpawnerSpawnEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
 import org.bukkit.inventory.EquipmentSlot;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.BlockStateMeta;
 import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataContainer;
 import org.bukkit.persistence.PersistentDataType;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -42,11 +53,19 @@ import com.wynvers.spawners.SpawnerDatabase.SpawnerRecord;
 public class WSpawners extends JavaPlugin implements Listener {
 
     private static final int BSTATS_PLUGIN_ID = 29665;
+    private static final int WARM_START_BATCH = 500;
+    /** Neighbours searched for a stack to merge into, after the block a spawner was placed against. */
+    private static final BlockFace[] STACK_FACES = {
+        BlockFace.UP, BlockFace.DOWN, BlockFace.NORTH, BlockFace.SOUTH, BlockFace.EAST, BlockFace.WEST
+    };
 
     private SpawnerConfig spawnerConfig;
     private SpawnerEditorMenu editorMenu;
     private SpawnerTickManager tickManager;
     private SpawnerDatabase database;
+    private SpawnerPages spawnerPages;
+    private final SpawnerItemCache spawnerItems = new SpawnerItemCache();
+    private ConfigWriter configWriter;
     private MessageManager messageManager;
 
     private NamespacedKey mythicMobTypeKey;
@@ -57,8 +76,18 @@ public class WSpawners extends JavaPlugin implements Listener {
     private NamespacedKey maxAmountKey;
     private NamespacedKey minScaleKey;
     private NamespacedKey maxScaleKey;
+    private NamespacedKey definitionVersionKey;
+    private NamespacedKey overrideKey;
+    private NamespacedKey spawnedByKey;
+    private NamespacedKey stackSizeKey;
+    private NamespacedKey aggregateCountKey;
+    private NamespacedKey aggregateGroupKey;
+    private NamespacedKey virtualLootKey;
+    private NamespacedKey virtualXpKey;
 
     private boolean mythicMobsEnabled = false;
+    private boolean stackingEnabled = true;
+    private int maxStackSize = 64;
     private final Map<UUID, String> openEditorSpawnerIds = new HashMap<>();
 
     // bStats counters
@@ -69,6 +98,7 @@ public class WSpawners extends JavaPlugin implements Listener {
     @Override
     public void onEnable() {
         saveDefaultConfig();
+        configWriter = new ConfigWriter(new File(getDataFolder(), "config.yml"), getLogger());
 
         mythicMobTypeKey = new NamespacedKey(this, "mythic_mob_type");
         spawnerIdKey     = new NamespacedKey(this, "spawner_id");
@@ -78,6 +108,14 @@ public class WSpawners extends JavaPlugin implements Listener {
         maxAmountKey     = new NamespacedKey(this, "max_amount");
         minScaleKey      = new NamespacedKey(this, "min_scale");
         maxScaleKey      = new NamespacedKey(this, "max_scale");
+        definitionVersionKey = new NamespacedKey(this, "definition_version");
+        overrideKey          = new NamespacedKey(this, "override");
+        spawnedByKey         = new NamespacedKey(this, "spawned_by");
+        stackSizeKey         = new NamespacedKey(this, "stack_size");
+        aggregateCountKey    = new NamespacedKey(this, "aggregate_count");
+        aggregateGroupKey    = new NamespacedKey(this, "aggregate_id");
+        virtualLootKey       = new NamespacedKey(this, "virtual_loot");
+        virtualXpKey         = new NamespacedKey(this, "virtual_xp");
 
         messageManager = new MessageManager(this);
 
@@ -86,19 +124,30 @@ public class WSpawners extends JavaPlugin implements Listener {
 
         editorMenu  = new SpawnerEditorMenu(this);
         tickManager = new SpawnerTickManager(this);
-        tickManager.setSparkEnabled(getConfig().getBoolean("spark-particles", true));
-        tickManager.setMaxSpawnsPerTick(getConfig().getInt("max-spawns-per-tick", 4));
-        tickManager.setMaxNearbyEntities(getConfig().getInt("max-nearby-entities", 0));
+        applyTickSettings();
+        applyStackingSettings();
 
-        database = new SpawnerDatabase(getDataFolder(), getLogger());
+        File journalFile = getConfig().getBoolean("database.journal", true)
+                ? new File(getDataFolder(), "spawners.journal") : null;
+        database = new SpawnerDatabase(createStorage(), journalFile, getLogger(),
+                getConfig().getInt("database.reader-connections", 2));
+        spawnerPages = new SpawnerPages(database);
 
         mythicMobsEnabled = Bukkit.getPluginManager().getPlugin("MythicMobs") != null;
         if (mythicMobsEnabled) getLogger().info("MythicMobs detected!");
 
         getServer().getPluginManager().registerEvents(this, this);
         getServer().getPluginManager().registerEvents(editorMenu, this);
+        getServer().getPluginManager().registerEvents(tickManager, this);
 
         tickManager.start();
+        warmStart();
+        // Chunks loaded before enable never fire ChunkLoadEvent for us.
+        for (World world : Bukkit.getWorlds()) {
+            for (Chunk chunk : world.getLoadedChunks()) {
+                database.loadChunkOwners(world.getName(), chunk.getX(), chunk.getZ());
+            }
+        }
         initBStats();
 
         WSpawnersAPI.init(this);
@@ -106,6 +155,44 @@ public class WSpawners extends JavaPlugin implements Listener {
         getLogger().info("WSpawners enabled!");
     }
 
+    /** Picks the storage backend configured under {@code database.type}. */
+    private SpawnerStorage createStorage() {
+        String type = getConfig().getString("database.type", "sqlite").trim().toLowerCase(Locale.ROOT);
+        switch (type) {
+            case "mysql":
+            case "mariadb":
+                return new MySqlSpawnerStorage(
+                        getConfig().getString("database.mysql.url", "jdbc:mysql://localhost:3306/wspawners"),
+                        getConfig().getString("database.mysql.username", ""),
+                        getConfig().getString("database.mysql.password", ""),
+                        getLogger());
+            case "sqlite":
+                return new SqliteSpawnerStorage(getDataFolder(), getLogger());
+            default:
+                getLogger().warning("Unknown database.type '" + type + "', falling back to sqlite.");
+                return new SqliteSpawnerStorage(getDataFolder(), getLogger());
+        }
+    }
+
+    /**
+     * Re-registers every spawner recorded in the database so countdowns resume
+     * straight after a restart instead of waiting for a player to interact.
+     * Rows are read off the main thread and handed over in chunk-ordered batches.
+     */
+    private void warmStart() {
+        Bukkit.getScheduler().runTaskAsynchronously(this, () -> {
+            database.streamTickStates(WARM_START_BATCH, batch -> {
+                if (isEnabled()) Bukkit.getScheduler().runTask(this, () -> tickManager.registerAll(batch));
+            });
+            if (isEnabled()) Bukkit.getScheduler().runTask(this, () -> {
+                // Runs after every batch above: mobs that loaded before their spawner was registered.
+                int reattached = tickManager.reattachLoadedEntities();
+                getLogger().info("Warm start: " + tickManager.getRegisteredCount() + " spawner(s) registered, "
+                        + reattached + " spawned mob(s) re-tracked.");
+            });
+        });
+    }
+
     private void initBStats() {
         Metrics metrics = new Metrics(this, BSTATS_PLUGIN_ID);
 
@@ -134,8 +221,10 @@ public class WSpawners extends JavaPlugin implements Listener {
 
     @Override
     public void onDisable() {
+        if (database != null) database.saveCountdowns(tickManager.snapshotCountdowns());
         tickManager.stop();
         if (database != null) database.close();
+        if (configWriter != null) configWriter.close();
         WSpawnersAPI.shutdown();
         getLogger().info("WSpawners disabled!");
     }
@@ -146,6 +235,8 @@ public class WSpawners extends JavaPlugin implements Listener {
     public SpawnerTickManager getTickManager()                 { return tickManager; }
     public SpawnerDatabase getDatabase()                       { return database; }
     public MessageManager getMessageManager()                  { return messageManager; }
+    SpawnerItemCache getSpawnerItemCache()                     { return spawnerItems; }
+    ConfigWriter getConfigWriter()                             { return configWriter; }
     public boolean isMythicMobsEnabled()                      { return mythicMobsEnabled; }
     public NamespacedKey getMythicMobTypeKey()                 { return mythicMobTypeKey; }
     public NamespacedKey getSpawnerIdKey()                     { return spawnerIdKey; }
@@ -155,6 +246,14 @@ public class WSpawners extends JavaPlugin implements Listener {
     public NamespacedKey getMaxAmountKey()                     { return maxAmountKey; }
     public NamespacedKey getMinScaleKey()                      { return minScaleKey; }
     public NamespacedKey getMaxScaleKey()                      { return maxScaleKey; }
+    public NamespacedKey getDefinitionVersionKey()             { return definitionVersionKey; }
+    public NamespacedKey getOverrideKey()                      { return overrideKey; }
+    public NamespacedKey getSpawnedByKey()                     { return spawnedByKey; }
+    public NamespacedKey getStackSizeKey()                     { return stackSizeKey; }
+    public NamespacedKey getAggregateCountKey()                { return aggregateCountKey; }
+    public NamespacedKey getAggregateGroupKey()                { return aggregateGroupKey; }
+    public NamespacedKey getVirtualLootKey()                   { return virtualLootKey; }
+    public NamespacedKey getVirtualXpKey()                     { return virtualXpKey; }
     public String getOpenEditorSpawnerId(UUID uuid)            { return openEditorSpawnerIds.get(uuid); }
     public void setOpenEditorSpawnerId(UUID uuid, String id)   { openEditorSpawnerIds.put(uuid, id); }
     public void trackMythicSpawn()                             { mythicSpawns.incrementAndGet(); }
@@ -162,12 +261,50 @@ public class WSpawners extends JavaPlugin implements Listener {
 
     /** Reloads configuration and refreshes all in-memory state. */
     public void reloadPlugin() {
+        configWriter.flush(); // editor changes still waiting to be written
         reloadConfig();
         spawnerConfig.loadSpawners(getConfig());
         messageManager.reload();
+        spawnerPages.clear(); // rendered pages embed the old messages
+        spawnerItems.clear();
+        applyTickSettings();
+        applyStackingSettings();
+    }
+
+    private void applyTickSettings() {
+        tickManager.setPlayerRange(spawnerConfig.getAllSpawners().values());
         tickManager.setSparkEnabled(getConfig().getBoolean("spark-particles", true));
+        tickManager.setSparkSettings(
+                getConfig().getInt("spark.render-distance", 32),
+                getConfig().getInt("spark.max-per-chunk", 20),
+                getConfig().getInt("spark.max-per-player", 100));
         tickManager.setMaxSpawnsPerTick(getConfig().getInt("max-spawns-per-tick", 4));
         tickManager.setMaxNearbyEntities(getConfig().getInt("max-nearby-entities", 0));
+        tickManager.setAggregationSettings(
+                getConfig().getInt("aggregation.radius", 8),
+                getConfig().getInt("aggregation.max-count", 50));
+        tickManager.setVirtualStorageSettings(
+                getConfig().getInt("virtual-storage.max-items", 2304),
+                getConfig().getInt("virtual-storage.max-xp", 100000),
+                getConfig().getBoolean("virtual-storage.player-kills", true));
+        tickManager.setTickBudgetMicros(getConfig().getInt("tick-budget-micros", 0));
+        tickManager.setRewriteStaleSpawners(getConfig().getBoolean("rewrite-stale-spawners", false));
+        tickManager.setSpawnQueueSettings(
+                getConfig().getInt("spawn-queue.capacity", 2000),
+                getConfig().getInt("spawn-queue.budget-micros", 0),
+                getConfig().getString("spawn-queue.overflow", "drop-oldest"));
+        String mode = getConfig().getString("tick-mode", "interval");
+        try {
+            tickManager.setTickMode(SpawnerTickManager.TickMode.valueOf(mode.toUpperCase(Locale.ROOT)));
+        } catch (IllegalArgumentException e) {
+            getLogger().warning("Invalid tick-mode '" + mode + "', using interval.");
+            tickManager.setTickMode(SpawnerTickManager.TickMode.INTERVAL);
+        }
+    }
+
+    private void applyStackingSettings() {
+        stackingEnabled = getConfig().getBoolean("stacking.enabled", true);
+        maxStackSize    = Math.max(1, getConfig().getInt("stacking.max-stack-size", 64));
     }
 
     // ---- Commands ----
@@ -179,8 +316,10 @@ public class WSpawners extends JavaPlugin implements Listener {
             case "list":       handleList(sender);           return true;
             case "give":       handleGive(sender, args);     return true;
             case "reload":     handleReload(sender);         return true;
-            case "myspawners": handleMySpawners(sender);     return true;
+            case "myspawners": handleMySpawners(sender, args); return true;
             case "info":       handleInfo(sender, args);     return true;
+            case "stats":      handleStats(sender);          return true;
+            case "override":   handleOverride(sender, args); return true;
             default: sender.sendMessage(messageManager.get("unknown-command", "command", args[0])); return true;
         }
     }
@@ -190,7 +329,8 @@ public class WSpawners extends JavaPlugin implements Listener {
         if (!command.getName().equalsIgnoreCase("spawner")) return Collections.emptyList();
         List<String> completions = new ArrayList<>();
         if (args.length == 1) {
-            List<String> subs = new ArrayList<>(Arrays.asList("give", "list", "reload", "myspawners", "info"));
+            List<String> subs = new ArrayList<>(Arrays.asList("give", "list", "reload", "myspawners", "info", "stats",
+                    "override"));
             for (String sub : subs)
                 if (sub.startsWith(args[0].toLowerCase())) completions.add(sub);
         } else if (args.length == 2 && args[0].equalsIgnoreCase("give")) {
@@ -202,6 +342,9 @@ public class WSpawners extends JavaPlugin implements Listener {
         } else if (args.length == 2 && args[0].equalsIgnoreCase("info")) {
             for (Player p : Bukkit.getOnlinePlayers())
                 if (p.getName().toLowerCase().startsWith(args[1].toLowerCase())) completions.add(p.getName());
+        } else if (args.length == 2 && args[0].equalsIgnoreCase("override")) {
+            for (String value : Arrays.asList("on", "off"))
+                if (value.startsWith(args[1].toLowerCase())) completions.add(value);
         }
         Collections.sort(completions);
         return completions;
@@ -233,53 +376,148 @@ public class WSpawners extends JavaPlugin implements Listener {
         sender.sendMessage(messageManager.get("reload-success"));
     }
 
-    private void handleMySpawners(CommandSender sender) {
-        if (!(sender instanceof Player)) {
-            sender.sendMessage(messageManager.get("myspawners-not-player"));
+    private void handleOverride(CommandSender sender, String[] args) {
+        if (!(sender instanceof Player)) { sender.sendMessage(messageManager.get("override-not-player")); return; }
+        Player player = (Player) sender;
+        if (!player.hasPermission("wspawner.admin")) { player.sendMessage(messageManager.get("override-no-permission")); return; }
+        if (args.length < 2 || !(args[1].equalsIgnoreCase("on") || args[1].equalsIgnoreCase("off"))) {
+            player.sendMessage(messageManager.get("override-usage"));
             return;
         }
-        Player player = (Player) sender;
-        List<SpawnerRecord> records = database.getSpawners(player.getUniqueId());
-        if (records.isEmpty()) {
-            player.sendMessage(messageManager.get("myspawners-empty"));
+        boolean override = args[1].equalsIgnoreCase("on");
+        Block block = player.getTargetBlockExact(5);
+        if (!setSpawnerOverride(block, override)) {
+            player.sendMessage(messageManager.get("override-no-target"));
             return;
         }
-        player.sendMessage(messageManager.get("myspawners-header"));
-        for (SpawnerRecord r : records) {
-            String type = r.getMythicMobType() != null ? "mm:" + r.getMythicMobType() : r.getEntityType();
-            player.sendMessage(messageManager.get("myspawners-entry",
-                    "spawner_id", r.getSpawnerId(),
-                    "world", r.getWorld(),
-                    "x", String.valueOf(r.getX()),
-                    "y", String.valueOf(r.getY()),
-                    "z", String.valueOf(r.getZ()),
-                    "type", type));
+        player.sendMessage(messageManager.get(override ? "override-enabled" : "override-disabled"));
+    }
+
+    private void handleMySpawners(CommandSender sender, String[] args) {
+        if (!(sender instanceof Player)) {
+            sender.sendMessage(messageManager.get("myspawners-not-player"));
+            return;
         }
+        Player player = (Player) sender;
+        Integer page = parsePage(sender, args, 1);
+        if (page == null) return;
+        spawnerPages.byOwner(player.getUniqueId(), page, r -> renderEntry("myspawners-entry", r))
+                .thenAccept(result -> runSync(() -> {
+                    if (!player.isOnline()) return;
+                    if (result.total == 0) {
+                        player.sendMessage(messageManager.get("myspawners-empty"));
+                        return;
+                    }
+                    player.sendMessage(messageManager.get("myspawners-header", pagePlaceholders(result)));
+                    result.lines.forEach(player::sendMessage);
+                    if (result.number < result.pageCount) {
+                        player.sendMessage(messageManager.get("myspawners-next",
+                                "next", String.valueOf(result.number + 1)));
+                    }
+                }));
     }
 
     private void handleInfo(CommandSender sender, String[] args) {
         if (args.length < 2) { sender.sendMessage(messageManager.get("info-usage")); return; }
         String targetName = args[1];
-        List<SpawnerRecord> records = database.getSpawnersByName(targetName);
-        if (records.isEmpty()) {
-            sender.sendMessage(messageManager.get("info-empty"));
-            return;
-        }
-        sender.sendMessage(messageManager.get("info-header", "player", targetName));
-        for (SpawnerRecord r : records) {
-            String type = r.getMythicMobType() != null ? "mm:" + r.getMythicMobType() : r.getEntityType();
-            sender.sendMessage(messageManager.get("info-entry",
-                    "spawner_id", r.getSpawnerId(),
-                    "world", r.getWorld(),
-                    "x", String.valueOf(r.getX()),
-                    "y", String.valueOf(r.getY()),
-                    "z", String.valueOf(r.getZ()),
-                    "type", type));
+        Integer page = parsePage(sender, args, 2);
+        if (page == null) return;
+        spawnerPages.byName(targetName, page, r -> renderEntry("info-entry", r))
+                .thenAccept(result -> runSync(() -> {
+                    if (result.total == 0) {
+                        sender.sendMessage(messageManager.get("info-empty"));
+                        return;
+                    }
+                    String[] placeholders = pagePlaceholders(result);
+                    String[] withPlayer = Arrays.copyOf(placeholders, placeholders.length + 2);
+                    withPlayer[placeholders.length] = "player";
+                    withPlayer[placeholders.length + 1] = targetName;
+                    sender.sendMessage(messageManager.get("info-header", withPlayer));
+                    result.lines.forEach(sender::sendMessage);
+                    if (result.number < result.pageCount) {
+                        sender.sendMessage(messageManager.get("info-next",
+                                "player", targetName, "next", String.valueOf(result.number + 1)));
+                    }
+                }));
+    }
+
+    /** Page argument at {@code index}, 1 if absent, or {@code null} (after telling the sender) if invalid. */
+    private Integer parsePage(CommandSender sender, String[] args, int index) {
+        if (args.length <= index) return 1;
+        try {
+            int page = Integer.parseInt(args[index]);
+            if (page >= 1) return page;
+        } catch (NumberFormatException ignored) {
+            // fall through to the error message
         }
+        sender.sendMessage(messageManager.get("page-invalid", "page", args[index]));
+        return null;
+    }
+
+    private static String[] pagePlaceholders(SpawnerPages.Page page) {
+        return new String[] {
+            "page", String.valueOf(page.number),
+            "pages", String.valueOf(page.pageCount),
+            "total", String.valueOf(page.total)
+        };
+    }
+
+    private String renderEntry(String key, SpawnerRecord r) {
+        String type = r.getMythicMobType() != null ? "mm:" + r.getMythicMobType() : r.getEntityType();
+        return messageManager.get(key,
+                "spawner_id", r.getSpawnerId(),
+                "world", r.getWorld(),
+                "x", String.valueOf(r.getX()),
+                "y", String.valueOf(r.getY()),
+                "z", String.valueOf(r.getZ()),
+                "type", type,
+                "stack", String.valueOf(r.getStackSize()));
+    }
+
+    /** Hands a database callback back to the main thread, unless the plugin is shutting down. */
+    private void runSync(Runnable task) {
+        if (isEnabled()) Bukkit.getScheduler().runTask(this, task);
+    }
+
+    private void handleStats(CommandSender sender) {
+        sender.sendMessage(messageManager.get("stats-header"));
+        sender.sendMessage(messageManager.get("stats-tick",
+                "mode", tickManager.getTickMode().name().toLowerCase(Locale.ROOT),
+                "registered", String.valueOf(tickManager.getRegisteredCount()),
+                "chunks", String.valueOf(tickManager.getLoadedChunkCount())));
+        sender.sendMessage(messageManager.get("stats-spawn-queue",
+                "depth", String.valueOf(tickManager.getSpawnQueueDepth()),
+                "capacity", String.valueOf(tickManager.getSpawnQueueCapacity()),
+                "mobs", String.valueOf(tickManager.getQueuedMobCount()),
+                "age", String.valueOf(tickManager.getOldestQueuedSpawnAgeMillis())));
+        sender.sendMessage(messageManager.get("stats-spawn-overflow",
+                "dropped", String.valueOf(tickManager.getDroppedSpawnCycles()),
+                "coalesced", String.valueOf(tickManager.getCoalescedSpawnCycles()),
+                "paused", String.valueOf(tickManager.getPausedSpawnCycles())));
+        long hits = database.getOwnerCacheHits(), misses = database.getOwnerCacheMisses();
+        sender.sendMessage(messageManager.get("stats-ownership",
+                "hits", String.valueOf(hits),
+                "misses", String.valueOf(misses),
+                "rate", hits + misses == 0 ? "0" : String.valueOf(hits * 100 / (hits + misses)),
+                "chunks", String.valueOf(database.getOwnerCacheChunkCount())));
+        long itemHits = spawnerItems.hits(), itemMisses = spawnerItems.misses();
+        sender.sendMessage(messageManager.get("stats-items",
+                "hits", String.valueOf(itemHits),
+                "misses", String.valueOf(itemMisses),
+                "rate", itemHits + itemMisses == 0 ? "0" : String.valueOf(itemHits * 100 / (itemHits + itemMisses)),
+                "templates", String.valueOf(spawnerItems.size())));
+        sender.sendMessage(messageManager.get("stats-entities",
+                "tracked", String.valueOf(tickManager.getTrackedEntityCount())));
     }
 
     // ---- Item creation ----
+
+    /** Returns a new spawner item for {@code data}, copied from a cached template. */
     public ItemStack createSpawnerItem(SpawnerData data) {
+        return spawnerItems.get(data, this::buildSpawnerItem);
+    }
+
+    private ItemStack buildSpawnerItem(SpawnerData data) {
         ItemStack item = new ItemStack(data.getMaterial());
         ItemMeta meta = item.getItemMeta();
         if (meta != null) {
@@ -292,20 +530,7 @@ public class WSpawners extends JavaPlugin implements Listener {
                 BlockState state = blockMeta.getBlockState();
                 if (state instanceof CreatureSpawner) {
                     CreatureSpawner spawner = (CreatureSpawner) state;
-                    spawner.setSpawnedType(data.isMythicMob() ? EntityType.PIG : data.getEntityType());
-                    spawner.setDelay(data.getDelay());
-                    spawner.setMinSpawnDelay(data.getDelay());
-                    spawner.setMaxSpawnDelay(data.getDelay());
-                    spawner.setRequiredPlayerRange(data.getRequiredPlayerRange());
-                    spawner.getPersistentDataContainer().set(spawnerIdKey, PersistentDataType.STRING, data.getId());
-                    if (data.isMythicMob())
-                        spawner.getPersistentDataContainer().set(mythicMobTypeKey, PersistentDataType.STRING, data.getMythicMobType());
-                    spawner.getPersistentDataContainer().set(minRadiusKey, PersistentDataType.INTEGER, data.getMinRadius());
-                    spawner.getPersistentDataContainer().set(maxRadiusKey, PersistentDataType.INTEGER, data.getMaxRadius());
-                    spawner.getPersistentDataContainer().set(minAmountKey, PersistentDataType.INTEGER, data.getMinAmount());
-                    spawner.getPersistentDataContainer().set(maxAmountKey, PersistentDataType.INTEGER, data.getMaxAmount());
-                    spawner.getPersistentDataContainer().set(minScaleKey, PersistentDataType.DOUBLE, data.getMinScale());
-                    spawner.getPersistentDataContainer().set(maxScaleKey, PersistentDataType.DOUBLE, data.getMaxScale());
+                    writeSpawnerSettings(spawner, data);
                     blockMeta.setBlockState(spawner);
                 }
             }
@@ -314,6 +539,58 @@ public class WSpawners extends JavaPlugin implements Listener {
         return item;
     }
 
+    /**
+     * Writes a definition's settings into a spawner block state, stamped with
+     * the definition version they were copied from.  Used for new items and
+     * to refresh stale placed spawners; the caller applies the state.
+     */
+    void writeSpawnerSettings(CreatureSpawner spawner, SpawnerData data) {
+        spawner.setSpawnedType(data.isMythicMob() ? EntityType.PIG : data.getEntityType());
+        spawner.setDelay(data.getDelay());
+        spawner.setMinSpawnDelay(data.getDelay());
+        spawner.setMaxSpawnDelay(data.getDelay());
+        spawner.setRequiredPlayerRange(data.getRequiredPlayerRange());
+        spawner.getPersistentDataContainer().set(spawnerIdKey, PersistentDataType.STRING, data.getId());
+        if (data.isMythicMob())
+            spawner.getPersistentDataContainer().set(mythicMobTypeKey, PersistentDataType.STRING, data.getMythicMobType());
+        else
+            spawner.getPersistentDataContainer().remove(mythicMobTypeKey);
+        spawner.getPersistentDataContainer().set(minRadiusKey, PersistentDataType.INTEGER, data.getMinRadius());
+        spawner.getPersistentDataContainer().set(maxRadiusKey, PersistentDataType.INTEGER, data.getMaxRadius());
+        spawner.getPersistentDataContainer().set(minAmountKey, PersistentDataType.INTEGER, data.getMinAmount());
+        spawner.getPersistentDataContainer().set(maxAmountKey, PersistentDataType.INTEGER, data.getMaxAmount());
+        spawner.getPersistentDataContainer().set(minScaleKey, PersistentDataType.DOUBLE, data.getMinScale());
+        spawner.getPersistentDataContainer().set(maxScaleKey, PersistentDataType.DOUBLE, data.getMaxScale());
+        spawner.getPersistentDataContainer().set(definitionVersionKey, PersistentDataType.INTEGER, data.getVersion());
+    }
+
+    /**
+     * Sets or clears the override marker of a placed spawner.  Both ways the
+     * block is first brought up to its current definition: an overridden
+     * block keeps the settings it has at this moment, and a released one
+     * follows the definition again from its next cycle.
+     *
+     * @return {@code false} if the block is not a managed spawner
+     */
+    boolean setSpawnerOverride(Block block, boolean override) {
+        if (block == null || block.getType() != Material.SPAWNER) return false;
+        BlockState state = block.getState();
+        if (!(state instanceof CreatureSpawner)) return false;
+        CreatureSpawner cs = (CreatureSpawner) state;
+        String spawnerId = cs.getPersistentDataContainer().get(spawnerIdKey, PersistentDataType.STRING);
+        if (spawnerId == null) return false;
+        SpawnerData data = spawnerConfig.getSpawner(spawnerId);
+        if (data != null) writeSpawnerSettings(cs, data);
+        if (override) {
+            cs.getPersistentDataContainer().set(overrideKey, PersistentDataType.BYTE, (byte) 1);
+        } else {
+            cs.getPersistentDataContainer().remove(overrideKey);
+        }
+        cs.update(true, false);
+        tickManager.refresh(block.getLocation());
+        return true;
+    }
+
     // ---- Events ----
 
     @EventHandler
@@ -329,6 +606,7 @@ public class WSpawners extends JavaPlugin implements Listener {
         CreatureSpawner itemSpawner = (CreatureSpawner) itemState;
         String spawnerId = itemSpawner.getPersistentDataContainer().get(spawnerIdKey, PersistentDataType.STRING);
         if (spawnerId == null) return;
+        if (stackingEnabled && tryStack(event, itemSpawner, spawnerId)) return;
         BlockState placedState = event.getBlockPlaced().getState();
         if (!(placedState instanceof CreatureSpawner)) return;
         CreatureSpawner placedSpawner = (CreatureSpawner) placedState;
@@ -345,6 +623,8 @@ public class WSpawners extends JavaPlugin implements Listener {
         copyPDCInt(itemSpawner, placedSpawner, maxAmountKey);
         copyPDCDouble(itemSpawner, placedSpawner, minScaleKey);
         copyPDCDouble(itemSpawner, placedSpawner, maxScaleKey);
+        copyPDCInt(itemSpawner, placedSpawner, definitionVersionKey);
+        copyPDC(itemSpawner, placedSpawner, overrideKey, PersistentDataType.BYTE);
         placedSpawner.update();
         SpawnerData data = spawnerConfig.getSpawner(spawnerId);
         int delay = data != null ? data.getDelay() : itemSpawner.getDelay();
@@ -355,6 +635,7 @@ public class WSpawners extends JavaPlugin implements Listener {
         if (data != null) {
             database.addSpawner(event.getPlayer().getUniqueId(), event.getPlayer().getName(),
                     spawnerId, event.getBlockPlaced().getLocation(), data);
+            spawnerPages.invalidate(event.getPlayer().getUniqueId());
         }
     }
 
@@ -367,31 +648,146 @@ public class WSpawners extends JavaPlugin implements Listener {
         CreatureSpawner cs = (CreatureSpawner) state;
         String spawnerId = cs.getPersistentDataContainer().get(spawnerIdKey, PersistentDataType.STRING);
         if (spawnerId == null) return;
-        tickManager.unregister(block.getLocation());
         Player player = event.getPlayer();
 
         // Check permissions: admin or owner with wspawners.use
-        UUID ownerUuid = database.getOwner(block.getLocation());
-        boolean isOwner = ownerUuid != null && ownerUuid.equals(player.getUniqueId());
-        boolean isAdmin = player.hasPermission("wspawner.admin");
+        UUID ownerUuid = database.lookupOwner(block.getLocation());
+        if (!player.hasPermission("wspawner.admin")) {
+            if (ownerUuid == SpawnerDatabase.OWNER_LOADING) {
+                // Never wait for the database here; the chunk's owners are on their way.
+                event.setCancelled(true);
+                player.sendMessage(messageManager.get("spawner-owner-loading"));
+                return;
+            }
+            boolean isOwner = ownerUuid != null && ownerUuid.equals(player.getUniqueId());
+            if (!(isOwner && player.hasPermission("wspawners.use"))) {
+                event.setCancelled(true);
+                player.sendMessage(messageManager.get("spawner-no-permission-break"));
+                return;
+            }
+        }
 
-        if (!isAdmin && !(isOwner && player.hasPermission("wspawners.use"))) {
+        SpawnerData data = spawnerConfig.getSpawner(spawnerId);
+        int stackSize = stackSize(cs);
+        if (data != null && stackSize > 1 && !player.isSneaking()) {
+            // Take one spawner off the stack; sneaking breaks the whole stack.
             event.setCancelled(true);
-            player.sendMessage(messageManager.get("spawner-no-permission-break"));
+            stackSize--;
+            cs.getPersistentDataContainer().set(stackSizeKey, PersistentDataType.INTEGER, stackSize);
+            cs.update(true, false);
+            tickManager.setStackSize(block.getLocation(), stackSize);
+            database.setStackSize(block.getLocation(), stackSize);
+            invalidatePages(ownerUuid);
+            giveSpawnerItems(player, block, data, 1);
+            player.sendMessage(messageManager.get("spawner-unstacked",
+                    "name", data.getDisplayName(), "stack", String.valueOf(stackSize)));
             return;
         }
-
-        SpawnerData data = spawnerConfig.getSpawner(spawnerId);
+        // Stored virtual loot goes to the breaker; whatever does not fit drops with the spawner.
+        VirtualStorage stored = tickManager.getVirtualStorage(block.getLocation());
+        if (stored != null && !stored.isEmpty()) stored.giveTo(player, block, true);
+        tickManager.unregister(block.getLocation());
         if (data == null) return;
         event.setDropItems(false);
         event.setExpToDrop(0);
-        ItemStack spawnerItem = createSpawnerItem(data);
-        Map<Integer, ItemStack> overflow = player.getInventory().addItem(spawnerItem);
-        if (!overflow.isEmpty()) block.getWorld().dropItemNaturally(block.getLocation(), spawnerItem);
-        player.sendMessage(messageManager.get("spawner-recovered", "name", data.getDisplayName()));
+        giveSpawnerItems(player, block, data, stackSize);
+        if (stackSize > 1) {
+            player.sendMessage(messageManager.get("spawner-stack-recovered",
+                    "name", data.getDisplayName(), "amount", String.valueOf(stackSize)));
+        } else {
+            player.sendMessage(messageManager.get("spawner-recovered", "name", data.getDisplayName()));
+        }
 
         // Remove from database
         database.removeSpawner(block.getLocation());
+        invalidatePages(ownerUuid);
+    }
+
+    /**
+     * Drops the cached listings of a spawner's owner; all of them if an admin
+     * broke it before its owner was known.
+     */
+    private void invalidatePages(UUID ownerUuid) {
+        if (ownerUuid == SpawnerDatabase.OWNER_LOADING) spawnerPages.clear();
+        else if (ownerUuid != null) spawnerPages.invalidate(ownerUuid);
+    }
+
+    /** Gives {@code amount} spawner items to a player, dropping what does not fit at the block. */
+    private void giveSpawnerItems(Player player, Block block, SpawnerData data, int amount) {
+        ItemStack spawnerItem = createSpawnerItem(data);
+        spawnerItem.setAmount(amount);
+        Map<Integer, ItemStack> overflow = player.getInventory().addItem(spawnerItem);
+        for (ItemStack left : overflow.values()) block.getWorld().dropItemNaturally(block.getLocation(), left);
+    }
+
+    // ---- Stacking ----
+
+    /**
+     * Merges a spawner being placed into a stack of the same spawner that it
+     * was placed against or next to, instead of placing a new block.  The
+     * stack ticks as one spawner and spawns for all of its spawners at once.
+     *
+     * @return whether the placement was merged into a stack (and cancelled)
+     */
+    private boolean tryStack(BlockPlaceEvent event, CreatureSpawner itemSpawner, String spawnerId) {
+        // Items with their own settings would lose them in a stack.
+        if (itemSpawner.getPersistentDataContainer().has(overrideKey, PersistentDataType.BYTE)) return false;
+        Player player = event.getPlayer();
+        CreatureSpawner target = findStack(event.getBlockAgainst(), spawnerId, player);
+        for (int i = 0; target == null && i < STACK_FACES.length; i++) {
+            target = findStack(event.getBlockPlaced().getRelative(STACK_FACES[i]), spawnerId, player);
+        }
+        if (target == null) return false;
+
+        event.setCancelled(true);
+        int stackSize = stackSize(target) + 1;
+        target.getPersistentDataContainer().set(stackSizeKey, PersistentDataType.INTEGER, stackSize);
+        target.update(true, false);
+        if (player.getGameMode() != GameMode.CREATIVE) {
+            ItemStack held = player.getInventory().getItem(event.getHand());
+            if (held != null) {
+                held.setAmount(held.getAmount() - 1);
+                player.getInventory().setItem(event.getHand(), held.getAmount() > 0 ? held : null);
+            }
+        }
+
+        Location loc = target.getLocation();
+        tickManager.setStackSize(loc, stackSize);
+        database.setStackSize(loc, stackSize);
+        UUID ownerUuid = database.getOwner(loc);
+        if (ownerUuid != null) spawnerPages.invalidate(ownerUuid);
+        spawnersPlaced.incrementAndGet();
+        SpawnerData data = spawnerConfig.getSpawner(spawnerId);
+        player.sendMessage(messageManager.get("spawner-stacked",
+                "name", data != null ? data.getDisplayName() : spawnerId,
+                "stack", String.valueOf(stackSize),
+                "max", String.valueOf(maxStackSize)));
+        return true;
+    }
+
+    /**
+     * The spawner at {@code block} if a spawner with {@code spawnerId} may be
+     * merged into it by {@code player}: same definition, no override marker,
+     * room left in the stack, and owned by the player (or the player is an admin).
+     */
+    private CreatureSpawner findStack(Block block, String spawnerId, Player player) {
+        if (block == null || block.getType() != Material.SPAWNER) return null;
+        BlockState state = block.getState();
+        if (!(state instanceof CreatureSpawner)) return null;
+        CreatureSpawner cs = (CreatureSpawner) state;
+        PersistentDataContainer pdc = cs.getPersistentDataContainer();
+        if (!spawnerId.equals(pdc.get(spawnerIdKey, PersistentDataType.STRING))) return null;
+        if (pdc.has(overrideKey, PersistentDataType.BYTE) || stackSize(cs) >= maxStackSize) return null;
+        UUID ownerUuid = database.getOwner(block.getLocation());
+        if (ownerUuid == null) return null;
+        if (!ownerUuid.equals(player.getUniqueId()) && !player.hasPermission("wspawner.admin")) return null;
+        return cs;
+    }
+
+    /** Number of spawners merged into a placed spawner; 1 if it is not stacked. */
+    private int stackSize(CreatureSpawner spawner) {
+        Integer size = spawner.getPersistentDataContainer().get(stackSizeKey, PersistentDataType.INTEGER);
+        return size != null ? Math.max(1, size) : 1;
     }
 
     @EventHandler
@@ -416,7 +812,12 @@ public class WSpawners extends JavaPlugin implements Listener {
         Player player = event.getPlayer();
         boolean isAdmin = player.hasPermission("wspawner.admin");
         if (!isAdmin) {
-            UUID ownerUuid = database.getOwner(block.getLocation());
+            UUID ownerUuid = database.lookupOwner(block.getLocation());
+            if (ownerUuid == SpawnerDatabase.OWNER_LOADING) {
+                event.setCancelled(true);
+                player.sendMessage(messageManager.get("spawner-owner-loading"));
+                return;
+            }
             boolean isOwner = ownerUuid != null && ownerUuid.equals(player.getUniqueId());
             if (!(isOwner && player.hasPermission("wspawners.use"))) return;
         }
@@ -429,7 +830,27 @@ public class WSpawners extends JavaPlugin implements Listener {
         if (data == null) { player.sendMessage(messageManager.get("spawner-data-not-found", "id", spawnerId)); return; }
         event.setCancelled(true);
         openEditorSpawnerIds.put(player.getUniqueId(), spawnerId);
-        editorMenu.open(player, data);
+        if (data.isVirtual() && !tickManager.isRegistered(block.getLocation())) {
+            tickManager.register(block.getLocation(), data.getDelay());
+        }
+        editorMenu.open(player, data, data.isVirtual() ? block.getLocation() : null);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        Chunk chunk = event.getChunk();
+        database.loadChunkOwners(event.getWorld().getName(), chunk.getX(), chunk.getZ());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        Chunk chunk = event.getChunk();
+        database.evictChunkOwners(event.getWorld().getName(), chunk.getX(), chunk.getZ());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        database.evictWorldOwners(event.getWorld().getName());
     }
 
     // ---- PDC helpers ----
@@ -1,7 +1,9 @@
 package com.wynvers.spawners;
 
+import org.bukkit.Chunk;
 import org.bukkit.Location;
 import org.bukkit.Material;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockState;
 import org.bukkit.block.CreatureSpawner;
@@ -14,6 +16,7 @@ import org.bukkit.persistence.PersistentDataType;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Public API for WSpawners.
@@ -223,6 +226,48 @@ public final class WSpawnersAPI {
                 .get(plugin.getMythicMobTypeKey(), PersistentDataType.STRING);
     }
 
+    /**
+     * Returns how many spawners are merged into the given block: 1 for an
+     * unstacked spawner, 0 if the block is not a managed spawner.
+     *
+     * @param block the block to inspect (may be {@code null})
+     * @return the stack size, or 0
+     */
+    public int getStackSize(Block block) {
+        if (getSpawnerId(block) == null) return 0;
+        Integer size = ((CreatureSpawner) block.getState()).getPersistentDataContainer()
+                .get(plugin.getStackSizeKey(), PersistentDataType.INTEGER);
+        return size != null ? Math.max(1, size) : 1;
+    }
+
+    /**
+     * Returns {@code true} if the given placed spawner carries the override
+     * marker, i.e. keeps its own settings instead of following its spawner
+     * definition.
+     *
+     * @param block the block to inspect (may be {@code null})
+     * @return {@code true} if the block is a managed spawner with an override
+     */
+    public boolean hasOverride(Block block) {
+        if (getSpawnerId(block) == null) return false;
+        return ((CreatureSpawner) block.getState()).getPersistentDataContainer()
+                .has(plugin.getOverrideKey(), PersistentDataType.BYTE);
+    }
+
+    /**
+     * Sets or clears the override marker of a placed spawner.  Setting it
+     * freezes the block at its definition's current settings, so later edits
+     * of the definition no longer reach it; clearing it makes the block follow
+     * the definition again.  Must be called on the server main thread.
+     *
+     * @param block    the spawner block
+     * @param override whether the block keeps its own settings
+     * @return {@code false} if the block is not a managed spawner
+     */
+    public boolean setOverride(Block block, boolean override) {
+        return plugin.setSpawnerOverride(block, override);
+    }
+
     // -------------------------------------------------------------------------
     // Player helpers
     // -------------------------------------------------------------------------
@@ -249,9 +294,14 @@ public final class WSpawnersAPI {
     /**
      * Returns all spawner records placed by the given player.
      *
+     * <p>This call blocks the calling thread until the database answers and
+     * must not be used from the server main thread.</p>
+     *
      * @param playerUuid the player's UUID
      * @return list of spawner records (never {@code null})
+     * @deprecated blocks on the database; use {@link #getPlayerSpawnersAsync(UUID)}
      */
+    @Deprecated
     public List<SpawnerDatabase.SpawnerRecord> getPlayerSpawners(UUID playerUuid) {
         return plugin.getDatabase().getSpawners(playerUuid);
     }
@@ -259,17 +309,49 @@ public final class WSpawnersAPI {
     /**
      * Returns all spawner records placed by the given player name.
      *
+     * <p>This call blocks the calling thread until the database answers and
+     * must not be used from the server main thread.</p>
+     *
      * @param playerName the player's name (case-insensitive)
      * @return list of spawner records (never {@code null})
+     * @deprecated blocks on the database; use {@link #getPlayerSpawnersByNameAsync(String)}
      */
+    @Deprecated
     public List<SpawnerDatabase.SpawnerRecord> getPlayerSpawnersByName(String playerName) {
         return plugin.getDatabase().getSpawnersByName(playerName);
     }
 
+    /**
+     * Asynchronous variant of {@link #getPlayerSpawners(UUID)}.  The future
+     * completes on the database thread, not the server main thread.
+     *
+     * @param playerUuid the player's UUID
+     * @return future of the player's spawner records
+     */
+    public CompletableFuture<List<SpawnerDatabase.SpawnerRecord>> getPlayerSpawnersAsync(UUID playerUuid) {
+        return plugin.getDatabase().getSpawnersAsync(playerUuid);
+    }
+
+    /**
+     * Asynchronous variant of {@link #getPlayerSpawnersByName(String)}.  The
+     * future completes on the database thread, not the server main thread.
+     *
+     * @param playerName the player's name (case-insensitive)
+     * @return future of the player's spawner records
+     */
+    public CompletableFuture<List<SpawnerDatabase.SpawnerRecord>> getPlayerSpawnersByNameAsync(String playerName) {
+        return plugin.getDatabase().getSpawnersByNameAsync(playerName);
+    }
+
     /**
      * Returns the UUID of the player who placed the spawner at the given
      * location, or {@code null} if the location is not tracked.
      *
+     * <p>Answered from memory without waiting for the database, so it also
+     * returns {@code null} while the owners of the location's chunk are still
+     * being loaded.  Use {@link #getSpawnerOwnerAsync(Location)} for an
+     * answer that always consults the database.</p>
+     *
      * @param location the spawner's block location
      * @return the owner's UUID, or {@code null}
      */
@@ -277,6 +359,47 @@ public final class WSpawnersAPI {
         return plugin.getDatabase().getOwner(location);
     }
 
+    /**
+     * Asynchronous variant of {@link #getSpawnerOwner(Location)} that reads
+     * the database.  The future completes on the database thread, not the
+     * server main thread.
+     *
+     * @param location the spawner's block location
+     * @return future of the owner's UUID, completing with {@code null} if the location is not tracked
+     */
+    public CompletableFuture<UUID> getSpawnerOwnerAsync(Location location) {
+        return plugin.getDatabase().getOwnerAsync(location);
+    }
+
+    /**
+     * Returns every managed spawner recorded in the given chunk.  Runs as one
+     * indexed database lookup; the future completes on the database thread,
+     * not the server main thread.
+     *
+     * @param chunk the chunk to look in (does not need to be loaded)
+     * @return future of the spawner records in that chunk
+     */
+    public CompletableFuture<List<SpawnerDatabase.SpawnerRecord>> getSpawnersInChunk(Chunk chunk) {
+        return plugin.getDatabase().getSpawnersInChunkAsync(chunk.getWorld().getName(), chunk.getX(), chunk.getZ());
+    }
+
+    /**
+     * Returns every managed spawner recorded in a rectangle of chunks (both
+     * corners inclusive).  Runs as one indexed range scan; the future completes
+     * on the database thread, not the server main thread.
+     *
+     * @param world     the world to look in
+     * @param minChunkX first chunk X coordinate
+     * @param minChunkZ first chunk Z coordinate
+     * @param maxChunkX last chunk X coordinate
+     * @param maxChunkZ last chunk Z coordinate
+     * @return future of the spawner records in the region
+     */
+    public CompletableFuture<List<SpawnerDatabase.SpawnerRecord>> getSpawnersInRegion(
+            World world, int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+        return plugin.getDatabase().getSpawnersInRegionAsync(world.getName(), minChunkX, minChunkZ, maxChunkX, maxChunkZ);
+    }
+
     // -------------------------------------------------------------------------
     // Tick-manager helpers
     // -------------------------------------------------------------------------
@@ -312,6 +435,24 @@ public final class WSpawnersAPI {
         return plugin.getTickManager().isRegistered(location);
     }
 
+    /**
+     * Returns the number of spawner cycles currently waiting in the spawn queue.
+     *
+     * @return queued spawner cycles
+     */
+    public int getSpawnQueueDepth() {
+        return plugin.getTickManager().getSpawnQueueDepth();
+    }
+
+    /**
+     * Returns how long the oldest queued spawner cycle has been waiting.
+     *
+     * @return age in milliseconds, or {@code 0} if the queue is empty
+     */
+    public long getOldestQueuedSpawnAgeMillis() {
+        return plugin.getTickManager().getOldestQueuedSpawnAgeMillis();
+    }
+
     // -------------------------------------------------------------------------
     // Plugin state
     // -------------------------------------------------------------------------
@@ -0,0 +1,160 @@
+package com.wynvers.spawners;
+
+import com.wynvers.spawners.SpawnerDatabase.SpawnerRecord;
+import com.wynvers.spawners.SpawnerDatabase.TickState;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the MySQL backend against an in-memory H2 database in MySQL mode:
+ * schema migrations, including re-running them on an existing schema, and a
+ * round trip through every read and write the plugin uses.
+ */
+class MySqlSpawnerStorageTest {
+
+    private static final Logger LOGGER = Logger.getLogger(MySqlSpawnerStorageTest.class.getName());
+    private static final UUID ALICE = UUID.fromString("00000000-0000-0000-0000-00000000000a");
+    private static final UUID BOB   = UUID.fromString("00000000-0000-0000-0000-00000000000b");
+
+    private String url;
+    private MySqlSpawnerStorage storage;
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void openDatabase(TestInfo test) throws SQLException {
+        // Unquoted identifiers stay upper case, as on a default H2 database.
+        url = "jdbc:h2:mem:" + test.getTestMethod().orElseThrow().getName() + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+        storage = new MySqlSpawnerStorage(url, "sa", "", LOGGER);
+        pool = storage.openPool(1);
+    }
+
+    @AfterEach
+    void closeDatabase() throws SQLException {
+        pool.close(LOGGER);
+        try (Connection conn = DriverManager.getConnection(url, "sa", "");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("SHUTDOWN");
+        }
+    }
+
+    @Test
+    void migratesFreshDatabase() throws SQLException {
+        Connection conn = pool.writer().raw();
+        assertEquals(4, schemaVersion(conn));
+        assertTrue(JdbcSpawnerStorage.columnExists(conn, "chunk_x"));
+        assertTrue(JdbcSpawnerStorage.columnExists(conn, "chunk_z"));
+        assertTrue(JdbcSpawnerStorage.columnExists(conn, "stack_size"));
+        assertTrue(JdbcSpawnerStorage.indexExists(conn, "idx_player_spawners_owner_pos"));
+        assertTrue(JdbcSpawnerStorage.indexExists(conn, "idx_player_spawners_chunk"));
+    }
+
+    @Test
+    void rerunsMigrationsOnExistingSchema() throws SQLException {
+        storage.upsertSpawners(pool.writer(), List.of(record(ALICE, "Alice", -17, 64, 5)));
+        try (Statement stmt = pool.writer().raw().createStatement()) {
+            // As if the version bump of an earlier run was lost after its DDL committed.
+            stmt.executeUpdate("UPDATE wspawners_schema SET version = 2");
+            stmt.executeUpdate("UPDATE player_spawners SET chunk_x = NULL, chunk_z = NULL");
+        }
+        pool.close(LOGGER);
+        pool = storage.openPool(1);
+
+        assertEquals(4, schemaVersion(pool.writer().raw()));
+        Map<Long, UUID> owners = storage.getChunkOwners(pool.writer(), "world", -2, 0);
+        assertEquals(ALICE, owners.get(BlockKey.pack(-17, 64, 5)));
+    }
+
+    @Test
+    void roundTrip() throws SQLException {
+        PooledConnection conn = pool.writer();
+        storage.upsertSpawners(conn, List.of(
+                record(ALICE, "Alice", 10, 64, 10),
+                record(ALICE, "Alice", -1, 70, -1),
+                record(BOB, "Bob", 40, 12, 3)));
+
+        assertEquals(ALICE, storage.getOwner(conn, "world", 10, 64, 10));
+        assertNull(storage.getOwner(conn, "world", 11, 64, 10));
+        assertEquals(2, storage.countSpawners(conn, ALICE));
+        assertEquals(1, storage.getSpawnersByName(conn, "Bob").size());
+        assertEquals(ALICE, storage.getChunkOwners(conn, "world", -1, -1).get(BlockKey.pack(-1, 70, -1)));
+
+        // Keyset pages follow (world, x, y, z) order.
+        List<SpawnerRecord> first = storage.getSpawnersPage(conn, ALICE, null, 1);
+        assertEquals(-1, first.get(0).getX());
+        List<SpawnerRecord> second = storage.getSpawnersPage(conn, ALICE,
+                new SpawnerStorage.Pos("world", -1, 70, -1), 1);
+        assertEquals(10, second.get(0).getX());
+
+        // An upsert at an occupied position replaces the row.
+        storage.upsertSpawners(conn, List.of(record(BOB, "Bob", 10, 64, 10)));
+        assertEquals(BOB, storage.getOwner(conn, "world", 10, 64, 10));
+        assertEquals(1, storage.countSpawners(conn, ALICE));
+
+        storage.updateStackSizes(conn, Map.of(new SpawnerStorage.Pos("world", 40, 12, 3), 5));
+        storage.saveCountdowns(conn, List.of(new TickState("world", 40, 12, 3, "zombie_spawner", 37)));
+        SpawnerRecord stacked = storage.getSpawners(conn, BOB).stream()
+                .filter(r -> r.getX() == 40).findFirst().orElseThrow();
+        assertEquals(5, stacked.getStackSize());
+
+        List<TickState> states = new ArrayList<>();
+        storage.streamTickStates(2, states::addAll);
+        assertEquals(3, states.size());
+        TickState saved = states.stream().filter(s -> s.getX() == 40).findFirst().orElseThrow();
+        assertEquals(37, saved.getCountdown());
+        TickState fresh = states.stream().filter(s -> s.getX() == 10).findFirst().orElseThrow();
+        assertEquals(200, fresh.getCountdown()); // no saved countdown: falls back to the delay
+
+        storage.deleteSpawners(conn, Collections.singletonList(new SpawnerStorage.Pos("world", -1, 70, -1)));
+        assertNull(storage.getOwner(conn, "world", -1, 70, -1));
+        assertEquals(0, storage.countSpawners(conn, ALICE));
+    }
+
+    @Test
+    void reopensDeadConnections() throws SQLException, InterruptedException {
+        PooledConnection writer = pool.writer();
+        storage.upsertSpawners(writer, List.of(record(ALICE, "Alice", 1, 64, 1)));
+        writer.raw().close(); // as if the server dropped it after wait_timeout
+        writer.validate();
+        storage.upsertSpawners(writer, List.of(record(ALICE, "Alice", 2, 64, 1)));
+
+        PooledConnection reader = pool.acquireReader();
+        try {
+            reader.raw().close();
+            pool.releaseReader(reader);
+            reader = pool.acquireReader();
+            assertEquals(2, storage.countSpawners(reader, ALICE));
+        } finally {
+            pool.releaseReader(reader);
+        }
+    }
+
+    private static SpawnerRecord record(UUID owner, String name, int x, int y, int z) {
+        return new SpawnerRecord(owner.toString(), name, "zombie_spawner", "world", x, y, z,
+                "ZOMBIE", null, 200, 16, 0, 0, 1, 1);
+    }
+
+    private static int schemaVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MAX(version) FROM wspawners_schema")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.wynvers.spawners;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * The spawn path between a spawner firing and its mobs being placed,
+ * {@link SpawnQueue#obtain()}, {@link SpawnQueue#offer}, the drain through
+ * {@link SpawnQueue#peek()} and {@link SpawnQueue#consume}, and the position
+ * and scale rolls of {@link SpawnPlacement}, must not allocate once the
+ * request pool is warm.  The Bukkit calls that create the entity itself are
+ * not covered.
+ */
+class SpawnPathAllocationTest {
+
+    private static final int SPAWNERS = 64;
+    private static final int WARMUP_ROUNDS = 20_000;
+    private static final int MEASURED_ROUNDS = 100_000;
+    // Room for incidental allocations of the measuring thread (class loading, JIT, TLAB bookkeeping).
+    private static final long SLACK_BYTES = 16 * 1024;
+
+    // Only held by locations, never called.
+    private final World world = (World) Proxy.newProxyInstance(World.class.getClassLoader(),
+            new Class<?>[] {World.class}, (proxy, method, args) -> {
+                throw new UnsupportedOperationException(method.getName());
+            });
+    private final Location center = new Location(world, 0, 64, 0);
+    private final TickedSpawner[] spawners = new TickedSpawner[SPAWNERS];
+    private final SpawnPlacement placement = new SpawnPlacement(new Random(42));
+    private double sink; // keeps the placement results alive
+
+    @Test
+    void steadySpawnRateDoesNotAllocate() {
+        com.sun.management.ThreadMXBean threads = threadBean();
+        assumeTrue(threads != null && threads.isThreadAllocatedMemorySupported(),
+                "per-thread allocation counters are not available on this JVM");
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        SpawnQueue queue = new SpawnQueue();
+        queue.setCapacity(SPAWNERS);
+        for (int i = 0; i < SPAWNERS; i++) spawners[i] = new TickedSpawner(i, center, null);
+
+        run(queue, WARMUP_ROUNDS);
+        long before = threads.getCurrentThreadAllocatedBytes();
+        long mobs = run(queue, MEASURED_ROUNDS);
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        assertEquals(MEASURED_ROUNDS * 3L, mobs);
+        assertTrue(sink != 0);
+        assertTrue(allocated < SLACK_BYTES,
+                allocated + " bytes allocated over " + MEASURED_ROUNDS + " spawn cycles");
+    }
+
+    @Test
+    void finishedRequestsAreReused() {
+        SpawnQueue queue = new SpawnQueue();
+        SpawnRequest request = queue.obtain();
+        queue.offer(request.set(new TickedSpawner(0, center, null), center, null, null, 0, 0, 1.0, 1.0, 1), 0);
+        queue.consume(1);
+        assertEquals(0, queue.size());
+        assertSame(request, queue.obtain());
+    }
+
+    @Test
+    void placementStaysWithinRadius() {
+        for (int i = 0; i < 1000; i++) {
+            Location loc = placement.around(center, 2, 4);
+            double dx = loc.getX() - 0.5, dz = loc.getZ() - 0.5;
+            assertTrue(dx * dx + dz * dz <= 16.0 + 1e-9);
+            assertSame(world, loc.getWorld());
+            assertEquals(64, loc.getY());
+            double scale = placement.scale(0.5, 1.5);
+            assertTrue(scale >= 0.5 && scale <= 1.5);
+        }
+    }
+
+    /**
+     * Fires one spawner per round, as the tick loop does, and drains the queue
+     * one mob at a time, placing and scaling each mob, as {@code spawnOne} does.
+     *
+     * @return the number of mobs drained
+     */
+    private long run(SpawnQueue queue, int rounds) {
+        long mobs = 0;
+        for (int round = 0; round < rounds; round++) {
+            TickedSpawner spawner = spawners[round % SPAWNERS];
+            queue.offer(queue.obtain().set(spawner, center, null, null, 0, 4, 0.8, 1.2, 3), round);
+            SpawnRequest request;
+            while ((request = queue.peek()) != null) {
+                Location loc = placement.around(request.center, request.minRadius, request.maxRadius);
+                if (SpawnPlacement.scales(request.minScale, request.maxScale)) {
+                    sink += placement.scale(request.minScale, request.maxScale);
+                }
+                sink += loc.getX() + loc.getZ();
+                queue.consume(1);
+                mobs++;
+            }
+        }
+        return mobs;
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        return bean instanceof com.sun.management.ThreadMXBean ? (com.sun.management.ThreadMXBean) bean : null;
+    }
+}